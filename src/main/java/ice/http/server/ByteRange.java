@@ -0,0 +1,89 @@
+package ice.http.server;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ByteRange {
+	public final long offset;
+	public final long length;
+
+	private static final String BYTES_UNIT = "bytes=";
+	private static final int MAX_RANGES = Integer.parseInt(System.getProperty("server.range.max", "16"));
+
+	public ByteRange(long offset, long length) {
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public String contentRange(long totalLength) {
+		return "bytes " + offset + "-" + (offset + length - 1) + "/" + totalLength;
+	}
+
+	// ranges of a "bytes=" header, null when the header is absent or invalid and the whole content should be sent,
+	// empty when none of the ranges can be satisfied.
+	public static List<ByteRange> parse(String range, long totalLength) {
+		if (StringUtils.isBlank(range) || !range.startsWith(BYTES_UNIT)) {
+			return null;
+		}
+
+		String[] specs = StringUtils.split(range.substring(BYTES_UNIT.length()), ',');
+
+		if (specs.length == 0 || specs.length > MAX_RANGES) {
+			return null;
+		}
+
+		List<ByteRange> ranges = Lists.newArrayListWithCapacity(specs.length);
+
+		for (String spec : specs) {
+			int delimiter = spec.indexOf('-');
+
+			if (delimiter < 0) {
+				return null;
+			}
+
+			String first = spec.substring(0, delimiter).trim();
+			String last = spec.substring(delimiter + 1).trim();
+
+			if (!StringUtils.isNumeric(first) || !StringUtils.isNumeric(last) || (first.isEmpty() && last.isEmpty())) {
+				return null;
+			}
+
+			try {
+				long start;
+				long end;
+
+				if (first.isEmpty()) { // suffix, the last n bytes
+					start = Math.max(0, totalLength - Long.parseLong(last));
+					end = totalLength - 1;
+				} else {
+					start = Long.parseLong(first);
+					end = last.isEmpty() ? totalLength - 1 : Long.parseLong(last);
+
+					if (!last.isEmpty() && end < start) {
+						return null;
+					}
+
+					end = Math.min(end, totalLength - 1);
+				}
+
+				if (start < totalLength) {
+					ranges.add(new ByteRange(start, end - start + 1));
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		return ranges.isEmpty() ? Collections.<ByteRange>emptyList() : ranges;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+	}
+}
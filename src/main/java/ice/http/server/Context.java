@@ -21,7 +21,8 @@ public final class Context {
 	public static final String DEFAULT_ENCODING = "UTF-8";
 	public static final Charset DEFAULT_CHARSET = Charset.forName(DEFAULT_ENCODING);
 	public static final String PATH_DELIMITER = "/";
-	public static final Pattern PATH_VARIABLE_PATTERN = Pattern.compile("\\{([0-9a-zA-Z_-]+)\\}");
+	public static final String PATH_CATCH_ALL = "**";
+	public static final Pattern PATH_VARIABLE_PATTERN = Pattern.compile("\\{([0-9a-zA-Z_-]+)(?::(.+))?\\}");
 	private static final Map<String, String> MIME_TYPES = Maps.newHashMap();
 	private static final Map<Class<? extends Annotation>, Method.HttpMethod> MVC_ANNOTATIONS = Maps.newLinkedHashMap();
 	private static final String DEFAULT_MIMETYPE = "application/octet-stream";
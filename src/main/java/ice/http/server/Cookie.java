@@ -90,6 +90,16 @@ public class Cookie implements Comparable<Cookie> {
 	private static final String RFC2965_PORT = "$Port";
 
 	public static Set<Cookie> decode(String header) {
+		return decode0(header, null);
+	}
+
+	// only the cookie of the given name, without decoding the others
+	public static Cookie decode(String header, String name) {
+		Set<Cookie> cookies = decode0(header, name);
+		return cookies.isEmpty() ? null : cookies.iterator().next();
+	}
+
+	private static Set<Cookie> decode0(String header, String filter) {
 		if (header == null) {
 			throw new NullPointerException("header");
 		}
@@ -177,10 +187,18 @@ public class Cookie implements Comparable<Cookie> {
 				continue;
 			}
 
+			if (filter != null && (nameEnd - nameBegin != filter.length() || !header.regionMatches(true, nameBegin, filter, 0, filter.length()))) {
+				continue;
+			}
+
 			Cookie cookie = initCookie(header, nameBegin, nameEnd, valueBegin, valueEnd);
 
 			if (cookie != null) {
 				cookies.add(cookie);
+
+				if (filter != null) {
+					break;
+				}
 			}
 		}
 
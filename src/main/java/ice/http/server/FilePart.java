@@ -0,0 +1,56 @@
+package ice.http.server;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+import java.io.File;
+import java.util.List;
+
+public class FilePart {
+	public final File file;
+	public final long offset;
+	public final long length;
+
+	public FilePart(File file, long offset, long length) {
+		this.file = file;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public boolean isPartial() {
+		return offset != 0 || length != file.length();
+	}
+
+	public String contentRange() {
+		return new ByteRange(offset, length).contentRange(file.length());
+	}
+
+	// a single byte range of the file, the whole file when range is absent or asks for several ranges,
+	// null when the range can not be satisfied.
+	public static FilePart of(File file, String range) {
+		List<ByteRange> ranges = ByteRange.parse(range, file.length());
+
+		if (ranges == null || ranges.size() > 1) {
+			return new FilePart(file, 0, file.length());
+		}
+
+		if (ranges.isEmpty()) {
+			return null;
+		}
+
+		return new FilePart(file, ranges.get(0).offset, ranges.get(0).length);
+	}
+
+	public static String etag(File file) {
+		return etag(file.length(), file.lastModified());
+	}
+
+	public static String etag(long length, long lastModified) {
+		return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+	}
+}
@@ -0,0 +1,118 @@
+package ice.http.server;
+
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.StringUtils;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Request.headers as a view of the netty headers, a Header is only created for the names read through it.
+// the Header handed out is kept and handed out again, so changes to its values are seen by later reads.
+class HeaderMap extends AbstractMap<String, Header> {
+	private final HttpHeaders httpHeaders;
+	private Map<String, Header> headers; // created on the first get
+
+	HeaderMap(HttpHeaders httpHeaders) {
+		this.httpHeaders = httpHeaders;
+	}
+
+	String value(String name) {
+		Header header = headers == null ? null : headers.get(name);
+
+		if (header == null) {
+			return httpHeaders.get(name);
+		}
+
+		return header.values.isEmpty() ? null : header.value();
+	}
+
+	@Override
+	public Header get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+
+		Header header = headers == null ? null : headers.get(key);
+
+		if (header != null) {
+			return header;
+		}
+
+		List<String> values = httpHeaders.getAll((String) key);
+
+		if (values.isEmpty()) {
+			return null;
+		}
+
+		header = new Header(StringUtils.lowerCase((String) key), values);
+
+		if (headers == null) {
+			headers = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+		}
+
+		headers.put(header.name, header);
+		return header;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && httpHeaders.contains((String) key);
+	}
+
+	@Override
+	public Header put(String key, Header value) {
+		Header previous = get(key);
+		httpHeaders.set(key, value.values);
+
+		if (headers == null) {
+			headers = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+		}
+
+		headers.put(key, value);
+		return previous;
+	}
+
+	@Override
+	public Header remove(Object key) {
+		Header previous = get(key);
+
+		if (previous != null) {
+			httpHeaders.remove((String) key);
+			headers.remove(key);
+		}
+
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return httpHeaders.names().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return httpHeaders.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		httpHeaders.clear();
+		headers = null;
+	}
+
+	// materialized on each call with the same Header instances as get, iterating every header is not on the hot path
+	@Override
+	public Set<Entry<String, Header>> entrySet() {
+		Map<String, Header> headers = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+
+		for (String name : httpHeaders.names()) {
+			Header header = get(name);
+			headers.put(header.name, header);
+		}
+
+		return headers.entrySet();
+	}
+}
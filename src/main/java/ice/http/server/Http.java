@@ -1,5 +1,6 @@
 package ice.http.server;
 
+import ice.http.server.annotations.Execution;
 import ice.http.server.view.View;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,5 +15,19 @@ public @interface Http {
 
 	String threadCount() default "0";
 
+	String executorThreads() default "0";
+
+	String executorQueueSize() default "1024";
+
+	Execution.Mode execution() default Execution.Mode.EXECUTOR;
+
+	String requestTimeout() default ""; // milliseconds, empty for no deadline. only enforced for actions on an executor or returning a future
+
+	String interruptOnTimeout() default "false"; // whether an action still running at its deadline is interrupted
+
 	Class<? extends View> view() default View.class;
+
+	String compressionThreshold() default "";
+
+	String[] compressionContentTypes() default {};
 }
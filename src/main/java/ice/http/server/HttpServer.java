@@ -1,6 +1,8 @@
 package ice.http.server;
 
+import com.google.common.collect.Maps;
 import ice.http.server.action.InterceptorManager;
+import ice.http.server.annotations.Execution;
 import ice.http.server.binder.BinderManager;
 import ice.http.server.dispatcher.Dispatcher;
 import ice.http.server.handler.HttpPipelineFactory;
@@ -8,6 +10,9 @@ import ice.http.server.param.ConverterManager;
 import ice.http.server.param.ValidatorManager;
 import ice.http.server.parser.ContentParser;
 import ice.http.server.router.HttpRouter;
+import ice.http.server.utils.BeanUtils;
+import ice.http.server.utils.NamedThreadFactory;
+import ice.http.server.utils.VirtualThreads;
 import ice.http.server.view.ViewResolver;
 import ice.http.server.websocket.WebSocketDispatcher;
 import ice.http.server.websocket.WebSocketRequestHandler;
@@ -18,14 +23,32 @@ import org.jboss.netty.channel.group.ChannelGroupFuture;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timer;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class HttpServer extends ServerTemplate {
 	private final Timer timer = new HashedWheelTimer();
+	private final Map<Execution.Mode, ExecutorService> executors = Maps.newEnumMap(Execution.Mode.class);
 	public static final ChannelGroup CHANNEL_GROUP = new DefaultChannelGroup(HttpServer.class.getSimpleName());
 
 	@Override
 	protected ChannelPipelineFactory getChannelPipelineFactory() {
-		HttpPipelineFactory httpPipelineFactory = new HttpPipelineFactory(timer, settings);
+		if (settings.getExecutorThreads() > 0) {
+			// bounded, a full queue is answered with 503 instead of piling up requests
+			executors.put(Execution.Mode.EXECUTOR, new ThreadPoolExecutor(settings.getExecutorThreads(), settings.getExecutorThreads(), 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(settings.getExecutorQueueSize()), new NamedThreadFactory("executor@" + settings.getName())));
+		}
+
+		executors.put(Execution.Mode.VIRTUAL, VirtualThreads.newExecutor("virtual@" + settings.getName())); // no thread is started until an action asks for one
+
+		HttpPipelineFactory httpPipelineFactory = new HttpPipelineFactory(timer, settings, Collections.<Execution.Mode, Executor>unmodifiableMap(executors));
 		httpPipelineFactory.setApplicationContext(applicationContext);
 		return httpPipelineFactory;
 	}
@@ -39,6 +62,20 @@ public class HttpServer extends ServerTemplate {
 	protected void serverShutdown() {
 		ChannelGroupFuture channelGroupFuture = CHANNEL_GROUP.close();
 		channelGroupFuture.awaitUninterruptibly();
+
+		for (ExecutorService executor : executors.values()) {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory configurableListableBeanFactory) throws BeansException {
+		super.postProcessBeanFactory(configurableListableBeanFactory);
+		String timerName = BeanUtils.beanName(settings, Timer.class);
+
+		if (!configurableListableBeanFactory.containsSingleton(timerName)) {
+			configurableListableBeanFactory.registerSingleton(timerName, timer); // timeouts of asynchronous results
+		}
 	}
 
 	@Override
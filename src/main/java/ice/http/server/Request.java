@@ -4,14 +4,19 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ForwardingList;
+import com.google.common.collect.ForwardingMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import ice.http.server.annotations.Method.HttpMethod;
+import ice.http.server.remote.RemoteHeaderNames;
+import ice.http.server.router.RouteMatch;
 import ice.http.server.view.View;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.DefaultHttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.QueryStringDecoder;
@@ -22,72 +27,72 @@ import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 public class Request {
-	public String host;
-	public Integer port;
+	@Deprecated
+	public String host; // use host()
+	@Deprecated
+	public Integer port; // use port()
 	public String path;
 	public String queryString;
 	public String remoteAddress;
 	public String contentType;
 	public String encoding = Context.DEFAULT_ENCODING;
-	public List<String> acceptLanguages;
+	@Deprecated
+	public List<String> acceptLanguages; // use acceptLanguages(), parsed on first use and null without the header
 	public boolean keepAlive;
 	public View view;
 	public HttpMethod method;
 	public Method actionMethod;
 	public Class<?> actionClass;
 	public RequestSession requestSession;
+	public RouteMatch routeMatch;
 	public RequestBody body; // application/json 인 경우, BODY 값에 채워넣음.
 	public Throwable exception;
 
 	public final Map<String, List<String>> params = Maps.newHashMap();
-	public final Map<String, Header> headers = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
-	public final Map<String, Cookie> cookies = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+	public final Map<String, Header> headers; // backed by the headers of the netty request
+	@Deprecated
+	public final Map<String, Cookie> cookies = new Cookies(); // use cookies() or cookie(name), decoded on first use
 	public final Map<String, Object> args = Maps.newHashMap();
 
-	public static final ThreadLocal<Request> REQUEST_HOLDER = new ThreadLocal<>();
-	private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private long deadline = NO_DEADLINE; // System.nanoTime() the response is due by
 
-	public static Request create(HttpRequest httpRequest, MessageEvent messageEvent) {
-		Request request = new Request();
+	private static final long NO_DEADLINE = Long.MIN_VALUE;
 
-		// header
-		for (String headerName : httpRequest.headers().names()) {
-			String lowerHeaderName = StringUtils.lowerCase(headerName);
-			request.headers.put(lowerHeaderName, new Header(lowerHeaderName, httpRequest.headers().getAll(headerName)));
-		}
+	private static final int DEFAULT_PORT = 80;
+	public static final ThreadLocal<Request> REQUEST_HOLDER = new ThreadLocal<>();
+	private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
-		// cookie
-		String cookieValue = httpRequest.headers().get(HttpHeaders.Names.COOKIE);
+	public Request() {
+		this(new DefaultHttpHeaders());
+	}
 
-		if (cookieValue != null) {
-			Set<Cookie> cookies = Cookie.decode(cookieValue);
+	private Request(HttpHeaders httpHeaders) {
+		this.headers = new HeaderMap(httpHeaders);
+	}
 
-			if (!CollectionUtils.isEmpty(cookies)) {
-				for (Cookie cookie : cookies) {
-					request.cookies.put(cookie.name, cookie);
-				}
-			}
-		}
+	public static Request create(HttpRequest httpRequest, MessageEvent messageEvent) {
+		Request request = new Request(httpRequest.headers());
 
+		// host, port
 		String host = request.header(HttpHeaders.Names.HOST);
+		request.port = DEFAULT_PORT; // temp
 
-		// host, port
 		if (host != null) {
-			if (host.contains(":")) {
-				int index = host.indexOf(":");
-				request.host = host.substring(0, index);
-				request.port = Integer.parseInt(host.substring(index + 1));
-			} else {
+			int index = host.lastIndexOf(':');
+
+			if (index < 0 || index < host.lastIndexOf(']')) { // no port, or an IPv6 literal without one
 				request.host = host;
-			}
-		}
+			} else {
+				request.host = host.substring(0, index);
 
-		if (request.port == null) {
-			request.port = 80; // temp
+				try {
+					request.port = Integer.parseInt(host.substring(index + 1));
+				} catch (NumberFormatException ignored) {
+				}
+			}
 		}
 
 		// path, querystring, params
@@ -95,7 +100,7 @@ public class Request {
 		QueryStringDecoder queryStringDecoder = new QueryStringDecoder(uri);
 		request.path = queryStringDecoder.getPath();
 
-		if (uri.contains("?")) {
+		if (uri.indexOf('?') >= 0) {
 			request.queryString = uri.substring(request.path.length() + 1);
 			request.params.putAll(queryStringDecoder.getParameters());
 		}
@@ -105,22 +110,17 @@ public class Request {
 		String methodOverride = request.header("X-Http-Method-Override");
 
 		if (methodOverride != null) {
-			request.method = HttpMethod.valueOf(methodOverride.intern());
+			request.method = HttpMethod.valueOf(methodOverride);
 		}
 
 		// remote address
-		request.remoteAddress = ((InetSocketAddress) messageEvent.getRemoteAddress()).getAddress().getHostAddress();
-		String forwardedFor = request.header("X-Forwarded-For");
+		String remoteAddress = request.header("X-Daum-IP");
 
-		if (forwardedFor != null) {
-			request.remoteAddress = forwardedFor.intern();
+		if (remoteAddress == null) {
+			remoteAddress = request.header("X-Forwarded-For");
 		}
 
-		String xDaumIp = request.header("X-Daum-IP");
-
-		if (xDaumIp != null) {
-			request.remoteAddress = xDaumIp.intern();
-		}
+		request.remoteAddress = remoteAddress == null ? ((InetSocketAddress) messageEvent.getRemoteAddress()).getAddress().getHostAddress() : remoteAddress;
 
 		// content type, encoding
 		String contentType = request.header(HttpHeaders.Names.CONTENT_TYPE);
@@ -128,19 +128,13 @@ public class Request {
 		if (contentType == null) {
 			request.contentType = "text/html";
 		} else {
-			String[] contentTypeParts = contentType.split(";");
-			request.contentType = contentTypeParts[0].trim().toLowerCase();
-
-			if (contentTypeParts.length >= 2) {
-				String[] encodingParts = contentTypeParts[1].split(("="));
+			int index = contentType.indexOf(';');
+			request.contentType = (index < 0 ? contentType : contentType.substring(0, index)).trim().toLowerCase();
 
-				if (encodingParts.length == 2 && encodingParts[0].trim().equalsIgnoreCase("charset")) {
-					String encoding = encodingParts[1].trim();
-
-					if (StringUtils.isNotBlank(encoding) && ((encoding.startsWith("\"") && encoding.endsWith("\"")) || (encoding.startsWith("'") && encoding.endsWith("'")))) {
-						encoding = encoding.substring(1, encoding.length() - 1).trim();
-					}
+			if (index >= 0) {
+				String encoding = charset(contentType, index + 1);
 
+				if (encoding != null) {
 					request.encoding = encoding;
 				}
 			}
@@ -148,38 +142,154 @@ public class Request {
 
 		request.keepAlive = HttpHeaders.isKeepAlive(httpRequest);
 
-		// accept languages
-		if (request.header("Accept-Language") != null) {
-			final Pattern qPattern = Pattern.compile("q=([0-9\\.]+)");
-			String acceptLanguage = request.header("Accept-Language").intern();
-			List<String> languages = Arrays.asList(acceptLanguage.split(","));
+		if (request.header(HttpHeaders.Names.ACCEPT_LANGUAGE) != null) {
+			request.acceptLanguages = request.new AcceptLanguages();
+		}
 
-			Collections.sort(languages, (lang1, lang2) -> {
-				double q1 = 1.0;
-				double q2 = 1.0;
+		// the budget left to a remote client that forwarded its own deadline
+		String deadline = request.header(RemoteHeaderNames.REMOTE_DEADLINE);
 
-				Matcher m1 = qPattern.matcher(lang1);
-				Matcher m2 = qPattern.matcher(lang2);
+		if (deadline != null) {
+			try {
+				request.deadline(Math.max(0L, Long.parseLong(deadline.trim())));
+			} catch (NumberFormatException ignored) {
+			}
+		}
 
-				if (m1.find()) {
-					q1 = Double.parseDouble(m1.group(1));
-				}
+		return request;
+	}
 
-				if (m2.find()) {
-					q2 = Double.parseDouble(m2.group(1));
-				}
+	private static String charset(String contentType, int start) {
+		int end = contentType.indexOf(';', start);
+		String parameter = contentType.substring(start, end < 0 ? contentType.length() : end);
+		int index = parameter.indexOf('=');
+
+		if (index < 0 || !parameter.substring(0, index).trim().equalsIgnoreCase("charset")) {
+			return null;
+		}
+
+		String encoding = parameter.substring(index + 1).trim();
+
+		if (StringUtils.isNotBlank(encoding) && ((encoding.startsWith("\"") && encoding.endsWith("\"")) || (encoding.startsWith("'") && encoding.endsWith("'")))) {
+			encoding = encoding.substring(1, encoding.length() - 1).trim();
+		}
+
+		return encoding;
+	}
+
+	// milliseconds from now, an earlier deadline is kept and a negative timeout is ignored
+	public void deadline(long timeout) {
+		if (timeout < 0) {
+			return;
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+		if (this.deadline == NO_DEADLINE || deadline - this.deadline < 0) {
+			this.deadline = deadline;
+		}
+	}
+
+	// milliseconds left until the deadline, -1 without one
+	public long remaining() {
+		if (deadline == NO_DEADLINE) {
+			return -1L;
+		}
+
+		return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	public boolean expired() {
+		return deadline != NO_DEADLINE && deadline - System.nanoTime() <= 0;
+	}
+
+	public String host() {
+		return host;
+	}
+
+	public int port() {
+		return port == null ? DEFAULT_PORT : port;
+	}
 
-				return (int) (q2 - q1);
-			});
+	public List<String> acceptLanguages() {
+		return acceptLanguages == null ? Collections.<String>emptyList() : acceptLanguages;
+	}
+
+	// language ranges of Accept-Language ordered by quality, the order of the header is kept between equal qualities
+	private List<String> parseAcceptLanguages() {
+		String acceptLanguage = header(HttpHeaders.Names.ACCEPT_LANGUAGE);
+
+		if (acceptLanguage == null) {
+			return Lists.newArrayList();
+		}
 
-			request.acceptLanguages = Lists.newArrayList();
+		List<Entry<String, Double>> languages = Lists.newArrayList();
 
-			for (String lang : languages) {
-				request.acceptLanguages.add(lang.trim().split(";")[0]);
+		for (String range : StringUtils.split(acceptLanguage, ',')) {
+			int index = range.indexOf(';');
+			String language = (index < 0 ? range : range.substring(0, index)).trim();
+
+			if (!language.isEmpty()) {
+				languages.add(new AbstractMap.SimpleImmutableEntry<>(language, index < 0 ? 1.0 : quality(range, index + 1)));
 			}
 		}
 
-		return request;
+		Collections.sort(languages, (language1, language2) -> Double.compare(language2.getValue(), language1.getValue()));
+		List<String> acceptLanguages = Lists.newArrayListWithCapacity(languages.size());
+
+		for (Entry<String, Double> language : languages) {
+			acceptLanguages.add(language.getKey());
+		}
+
+		return acceptLanguages;
+	}
+
+	private static double quality(String range, int start) {
+		int index = range.indexOf("q=", start);
+
+		if (index < 0) {
+			return 1.0;
+		}
+
+		int end = range.indexOf(';', index);
+
+		try {
+			return Double.parseDouble(range.substring(index + 2, end < 0 ? range.length() : end).trim());
+		} catch (NumberFormatException e) {
+			return 1.0;
+		}
+	}
+
+	public Map<String, Cookie> cookies() {
+		return cookies;
+	}
+
+	public Cookie cookie(String name) {
+		Map<String, Cookie> decoded = ((Cookies) cookies).cookies;
+
+		if (decoded != null) {
+			return decoded.get(name);
+		}
+
+		String cookieValue = header(HttpHeaders.Names.COOKIE);
+		return cookieValue == null ? null : Cookie.decode(cookieValue, name);
+	}
+
+	private Map<String, Cookie> decodeCookies() {
+		Map<String, Cookie> cookies = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+		String cookieValue = header(HttpHeaders.Names.COOKIE);
+
+		if (cookieValue != null) {
+			Set<Cookie> decoded = Cookie.decode(cookieValue);
+
+			if (!CollectionUtils.isEmpty(decoded)) {
+				for (Cookie cookie : decoded) {
+					cookies.put(cookie.name, cookie);
+				}
+			}
+		}
+
+		return cookies;
 	}
 
 	public Map<String, String> param() {
@@ -251,8 +361,7 @@ public class Request {
 	}
 
 	public String header(String headerName) {
-		Header header = headers.get(StringUtils.lowerCase(headerName));
-		return header == null ? null : header.value();
+		return ((HeaderMap) headers).value(headerName);
 	}
 
 	@Override
@@ -260,6 +369,33 @@ public class Request {
 		return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
 	}
 
+	// the deprecated fields parse their header on first use, as the accessors do
+	private final class Cookies extends ForwardingMap<String, Cookie> {
+		private Map<String, Cookie> cookies;
+
+		@Override
+		protected Map<String, Cookie> delegate() {
+			if (cookies == null) {
+				cookies = decodeCookies();
+			}
+
+			return cookies;
+		}
+	}
+
+	private final class AcceptLanguages extends ForwardingList<String> {
+		private List<String> languages;
+
+		@Override
+		protected List<String> delegate() {
+			if (languages == null) {
+				languages = parseAcceptLanguages();
+			}
+
+			return languages;
+		}
+	}
+
 	public interface RequestSession { // marker interface
 	}
 
@@ -1,15 +1,26 @@
 package ice.http.server;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.apache.http.entity.ContentType;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.stream.ChunkedInput;
 
+import java.io.File;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Response {
 	public HttpResponseStatus status = HttpResponseStatus.OK;
@@ -17,20 +28,110 @@ public class Response {
 	public String encoding = Context.DEFAULT_ENCODING;
 	public String requestPath;
 	public boolean shouldKeepAlive;
+	public boolean head; // HEAD request, the headers of the GET response are sent without its body
 	public byte[] output;
+	public ChannelBuffer content; // written by views in place of output, sent to the channel as it is
+	public ChunkedInput chunked; // produces the body as chunks of ChannelBuffer when its length is not known upfront
+	public FilePart file; // sent from the file itself, with sendfile when the pipeline allows it
+	public ListenableFuture<?> deferred; // done once the view of an asynchronous result is applied, the response is written then
 	public Throwable cause;
 
 	public final Map<String, Header> headers = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
 	public final Map<String, Cookie> cookies = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
 
+	private static final int DEFAULT_CONTENT_SIZE = Integer.parseInt(System.getProperty("server.response.buffer", "1024"));
+	private static final ChannelBufferFactory CONTENT_FACTORY = Boolean.valueOf(System.getProperty("server.response.direct", "false")) ? DirectChannelBufferFactory.getInstance() : HeapChannelBufferFactory.getInstance();
+
 	public static Response create(HttpRequest httpRequest) {
 		Response response = new Response();
 		response.requestPath = httpRequest.getUri();
 		response.contentType = StringUtils.defaultIfEmpty(httpRequest.headers().get(HttpHeaders.Names.CONTENT_TYPE), ContentType.TEXT_PLAIN.getMimeType());
 		response.shouldKeepAlive = HttpHeaders.isKeepAlive(httpRequest);
+		response.head = HttpMethod.HEAD.equals(httpRequest.getMethod());
 		return response;
 	}
 
+	public ChannelBuffer content() {
+		return content(DEFAULT_CONTENT_SIZE);
+	}
+
+	public ChannelBuffer content(int estimatedLength) {
+		this.output = null;
+		this.content = ChannelBuffers.dynamicBuffer(estimatedLength, CONTENT_FACTORY);
+		return content;
+	}
+
+	public ChannelBuffer toChannelBuffer() {
+		if (content != null) {
+			return content;
+		}
+
+		return output == null ? ChannelBuffers.EMPTY_BUFFER : ChannelBuffers.wrappedBuffer(output);
+	}
+
+	// the content, or the requested ranges of it as slices, a multipart/byteranges body for more than one range
+	public void content(ChannelBuffer content, String range) {
+		int length = content.readableBytes();
+		List<ByteRange> ranges = ByteRange.parse(range, length);
+		this.output = null;
+		header(HttpHeaders.Names.ACCEPT_RANGES, HttpHeaders.Values.BYTES);
+
+		if (ranges == null) {
+			this.content = content;
+			return;
+		}
+
+		if (ranges.isEmpty()) {
+			this.status = HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+			this.content = ChannelBuffers.EMPTY_BUFFER;
+			header(HttpHeaders.Names.CONTENT_RANGE, "bytes */" + length);
+			return;
+		}
+
+		this.status = HttpResponseStatus.PARTIAL_CONTENT;
+
+		if (ranges.size() == 1) {
+			ByteRange byteRange = ranges.get(0);
+			this.content = content.slice(content.readerIndex() + (int) byteRange.offset, (int) byteRange.length);
+			header(HttpHeaders.Names.CONTENT_RANGE, byteRange.contentRange(length));
+			return;
+		}
+
+		String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong());
+		ChannelBuffer[] parts = new ChannelBuffer[(ranges.size() << 1) + 1];
+
+		for (int i = 0; i < ranges.size(); i++) {
+			ByteRange byteRange = ranges.get(i);
+			String partHeader = "\r\n--" + boundary + "\r\n" + HttpHeaders.Names.CONTENT_TYPE + ": " + contentType + "\r\n" + HttpHeaders.Names.CONTENT_RANGE + ": " + byteRange.contentRange(length) + "\r\n\r\n";
+			parts[i << 1] = ChannelBuffers.copiedBuffer(partHeader, Context.DEFAULT_CHARSET);
+			parts[(i << 1) + 1] = content.slice(content.readerIndex() + (int) byteRange.offset, (int) byteRange.length);
+		}
+
+		parts[parts.length - 1] = ChannelBuffers.copiedBuffer("\r\n--" + boundary + "--\r\n", Context.DEFAULT_CHARSET);
+		this.contentType = "multipart/byteranges; boundary=" + boundary;
+		this.content = ChannelBuffers.wrappedBuffer(parts);
+	}
+
+	public void file(File file, String range) {
+		FilePart filePart = FilePart.of(file, range);
+		this.output = null;
+		this.content = null;
+		header(HttpHeaders.Names.ACCEPT_RANGES, HttpHeaders.Values.BYTES);
+
+		if (filePart == null) {
+			this.status = HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+			header(HttpHeaders.Names.CONTENT_RANGE, "bytes */" + file.length());
+			return;
+		}
+
+		if (filePart.isPartial()) {
+			this.status = HttpResponseStatus.PARTIAL_CONTENT;
+			header(HttpHeaders.Names.CONTENT_RANGE, filePart.contentRange());
+		}
+
+		this.file = filePart;
+	}
+
 	public void header(String name, String value) {
 		this.headers.put(name, new Header(name, value));
 	}
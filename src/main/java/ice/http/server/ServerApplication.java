@@ -241,6 +241,23 @@ public final class ServerApplication {
 				}
 
 				settings.setThreadCount(toInt(properties, Http.class, "threadCount", http.threadCount()));
+				settings.setExecutorThreads(toInt(properties, Http.class, "executorThreads", http.executorThreads()));
+				settings.setExecutorQueueSize(toInt(properties, Http.class, "executorQueueSize", http.executorQueueSize()));
+				settings.setExecution(http.execution());
+
+				if (StringUtils.isNotEmpty(http.requestTimeout())) {
+					settings.setRequestTimeout(toInt(properties, Http.class, "requestTimeout", http.requestTimeout()));
+				}
+
+				settings.setInterruptOnTimeout(Boolean.parseBoolean(ServerPropertiesConfigurer.resolveProperty(properties, http.interruptOnTimeout())));
+
+				if (StringUtils.isNotEmpty(http.compressionThreshold())) {
+					settings.setCompressionThreshold(toInt(properties, Http.class, "compressionThreshold", http.compressionThreshold()));
+				}
+
+				if (ArrayUtils.isNotEmpty(http.compressionContentTypes())) {
+					settings.setCompressionContentTypes(StringUtils.join(http.compressionContentTypes(), ","));
+				}
 
 				HttpServer httpServer = new HttpServer();
 				httpServer.setSettings(settings);
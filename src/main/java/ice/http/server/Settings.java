@@ -1,7 +1,9 @@
 package ice.http.server;
 
+import ice.http.server.annotations.Execution;
 import ice.http.server.view.Json;
 import ice.http.server.view.View;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
@@ -12,11 +14,23 @@ public class Settings {
 	// server
 	private int threadCount = 0;
 
+	// execution
+	private int executorThreads = 0; // 0 runs controllers on the i/o worker, where a synchronous action is not cut short by its deadline
+	private int executorQueueSize = 1024;
+	private Execution.Mode execution = Execution.Mode.EXECUTOR; // for actions without @Execution
+	private int requestTimeout = -1; // milliseconds, for actions without a timeout of their own, negative for none
+	private boolean interruptOnTimeout = false; // the response is answered at the deadline either way, the action is left running unless set
+
 	// http
 	private int keepAliveTimeout = -1;
 	private boolean cache = false;
 	private int cacheTtl = 24 * 60 * 60;
 
+	// compression
+	private int compressionThreshold = -1; // negative disables compression
+	private int compressionLevel = 6;
+	private String compressionContentTypes = "text/,application/json,application/javascript,application/xml,image/svg+xml";
+
 	// websocket
 	private int webSocketMaxContentLength = 65345;
 
@@ -54,6 +68,46 @@ public class Settings {
 		this.threadCount = threadCount;
 	}
 
+	public int getExecutorThreads() {
+		return executorThreads;
+	}
+
+	public void setExecutorThreads(int executorThreads) {
+		this.executorThreads = executorThreads;
+	}
+
+	public int getExecutorQueueSize() {
+		return executorQueueSize;
+	}
+
+	public void setExecutorQueueSize(int executorQueueSize) {
+		this.executorQueueSize = executorQueueSize;
+	}
+
+	public Execution.Mode getExecution() {
+		return execution;
+	}
+
+	public void setExecution(Execution.Mode execution) {
+		this.execution = execution;
+	}
+
+	public int getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	public void setRequestTimeout(int requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	public boolean isInterruptOnTimeout() {
+		return interruptOnTimeout;
+	}
+
+	public void setInterruptOnTimeout(boolean interruptOnTimeout) {
+		this.interruptOnTimeout = interruptOnTimeout;
+	}
+
 	public int getKeepAliveTimeout() {
 		return keepAliveTimeout;
 	}
@@ -78,6 +132,49 @@ public class Settings {
 		this.cacheTtl = cacheTtl;
 	}
 
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	public String getCompressionContentTypes() {
+		return compressionContentTypes;
+	}
+
+	public void setCompressionContentTypes(String compressionContentTypes) {
+		this.compressionContentTypes = compressionContentTypes;
+	}
+
+	public boolean isCompression() {
+		return compressionThreshold >= 0;
+	}
+
+	// content types are matched by prefix, so "text/" allows every text type
+	public boolean isCompressible(String contentType, long length) {
+		if (!isCompression() || length < compressionThreshold || StringUtils.isBlank(contentType)) {
+			return false;
+		}
+
+		for (String compressionContentType : StringUtils.split(compressionContentTypes, ',')) {
+			if (contentType.trim().startsWith(compressionContentType.trim())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	public int getWebSocketMaxContentLength() {
 		return webSocketMaxContentLength;
 	}
@@ -14,6 +14,7 @@ import java.util.Set;
 public class Interceptor {
 	private final Object bean;
 	private final Method method;
+	private final Invoker invoker;
 	private final Set<Class<? extends Annotation>> only;
 	private final Set<Class<? extends Annotation>> unless;
 	static final List<Class<? extends Annotation>> ANNOTATIONS = Arrays.asList(Before.class, After.class, Catch.class, Finally.class);
@@ -21,6 +22,7 @@ public class Interceptor {
 	public Interceptor(Object bean, Method method, Set<Class<? extends Annotation>> only, Set<Class<? extends Annotation>> unless) {
 		this.bean = bean;
 		this.method = method;
+		this.invoker = new Invoker(bean, method);
 		this.only = only;
 		this.unless = unless;
 	}
@@ -33,6 +35,10 @@ public class Interceptor {
 		return method;
 	}
 
+	public Invoker invoker() {
+		return invoker;
+	}
+
 	public Set<Class<? extends Annotation>> only() {
 		return only;
 	}
@@ -1,6 +1,5 @@
 package ice.http.server.action;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import ice.http.server.Request;
@@ -22,7 +21,6 @@ import org.springframework.util.ReflectionUtils.MethodCallback;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -150,16 +148,16 @@ public class InterceptorManager implements ApplicationContextAware {
 		Class<?>[] parameterTypes = interceptor.method().getParameterTypes();
 
 		if (parameterTypes == null || parameterTypes.length == 0) {
-			return ReflectionUtils.invokeMethod(interceptor.method(), interceptor.bean());
+			return interceptor.invoker().invoke();
 		}
 
-		List<Object> args = Lists.newArrayList();
+		Object[] args = new Object[parameterTypes.length];
 
-		for (Class<?> parameterType : parameterTypes) {
-			args.add(BindUtils.defaultValue(parameterType, request, response, cause));
+		for (int i = 0; i < parameterTypes.length; i++) {
+			args[i] = BindUtils.defaultValue(parameterTypes[i], request, response, cause);
 		}
 
-		return ReflectionUtils.invokeMethod(interceptor.method(), interceptor.bean(), args.toArray(new Object[args.size()]));
+		return interceptor.invoker().invoke(args);
 	}
 
 	private boolean interceptMatched(MethodAction methodAction, Interceptor interceptor) {
@@ -0,0 +1,144 @@
+package ice.http.server.action;
+
+import net.sf.cglib.asm.$ClassWriter;
+import net.sf.cglib.asm.$Type;
+import net.sf.cglib.core.ClassEmitter;
+import net.sf.cglib.core.CodeEmitter;
+import net.sf.cglib.core.Constants;
+import net.sf.cglib.core.DebuggingClassWriter;
+import net.sf.cglib.core.EmitUtils;
+import net.sf.cglib.core.Signature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Invoker {
+	private final Object bean;
+	private final Method method;
+	private final Call call;
+
+	private static final Signature CALL_SIGNATURE = new Signature("call", $Type.getType(Object.class), new $Type[]{$Type.getType(Object.class), $Type.getType(Object[].class)});
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+	private static final Logger logger = LoggerFactory.getLogger(Invoker.class);
+
+	public Invoker(Object bean, Method method) {
+		this.bean = bean;
+		this.method = method;
+		this.call = generate(method);
+	}
+
+	// implemented by a class generated for each method, its call site invokes the method directly so the jit can inline it
+	public interface Call {
+		Object call(Object bean, Object[] args) throws Throwable;
+	}
+
+	// methods the generated class can't see fall back to reflection
+	private static Call generate(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+
+		if (!accessible(method)) {
+			return null;
+		}
+
+		try {
+			String className = declaringClass.getName() + "$$Invoker$$" + method.getName() + "$$" + SEQUENCE.incrementAndGet();
+			DebuggingClassWriter writer = new DebuggingClassWriter($ClassWriter.COMPUTE_MAXS);
+			ClassEmitter ce = new ClassEmitter(writer);
+			ce.begin_class(Constants.V1_2, Constants.ACC_PUBLIC | Constants.ACC_FINAL, className, $Type.getType(Object.class), new $Type[]{$Type.getType(Call.class)}, Constants.SOURCE_FILE);
+			EmitUtils.null_constructor(ce);
+
+			CodeEmitter e = ce.begin_method(Constants.ACC_PUBLIC, CALL_SIGNATURE, null);
+
+			if (!Modifier.isStatic(method.getModifiers())) {
+				e.load_arg(0);
+				e.checkcast($Type.getType(declaringClass));
+			}
+
+			Class<?>[] parameterTypes = method.getParameterTypes();
+
+			for (int i = 0; i < parameterTypes.length; i++) {
+				e.load_arg(1);
+				e.aaload(i);
+				e.unbox($Type.getType(parameterTypes[i]));
+			}
+
+			$Type owner = $Type.getType(declaringClass);
+			Signature signature = new Signature(method.getName(), $Type.getMethodDescriptor(method));
+
+			if (Modifier.isStatic(method.getModifiers())) {
+				e.invoke_static(owner, signature);
+			} else if (declaringClass.isInterface()) {
+				e.invoke_interface(owner, signature);
+			} else {
+				e.invoke_virtual(owner, signature);
+			}
+
+			e.box($Type.getType(method.getReturnType())); // void is returned as null
+			e.return_value();
+			e.end_method();
+			ce.end_class();
+
+			return (Call) new CallLoader(declaringClass.getClassLoader()).define(className, writer.toByteArray()).newInstance();
+		} catch (Throwable e) {
+			logger.debug("[invoker] {} is invoked by reflection : {}", method, e.toString());
+			return null;
+		}
+	}
+
+	// the generated class is defined by its own loader, everything it names has to be public
+	private static boolean accessible(Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || !accessible(method.getDeclaringClass()) || !accessible(method.getReturnType())) {
+			return false;
+		}
+
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!accessible(parameterType)) {
+				return false;
+			}
+		}
+
+		return method.getDeclaringClass().getClassLoader() != null && !method.getDeclaringClass().getName().startsWith("java.");
+	}
+
+	private static boolean accessible(Class<?> clazz) {
+		while (clazz.isArray()) {
+			clazz = clazz.getComponentType();
+		}
+
+		for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+			if (!c.isPrimitive() && !Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// a child of the loader of the declaring class, which only needs the public types it names
+	private static final class CallLoader extends ClassLoader {
+		CallLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String className, byte[] bytes) {
+			return defineClass(className, bytes, 0, bytes.length);
+		}
+	}
+
+	public Object invoke(Object... args) {
+		if (call == null) {
+			return ReflectionUtils.invokeMethod(method, bean, args);
+		}
+
+		try {
+			return call.call(bean, args);
+		} catch (Throwable e) {
+			ReflectionUtils.rethrowRuntimeException(e);
+			return null;
+		}
+	}
+}
@@ -2,10 +2,14 @@ package ice.http.server.action;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import ice.http.server.Context;
 import ice.http.server.Parameter;
+import ice.http.server.annotations.Execution;
 import ice.http.server.annotations.Method.HttpMethod;
+import ice.http.server.binder.ParameterBinding;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.core.annotation.AnnotationUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
@@ -13,22 +17,32 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
 
 public class MethodAction implements Action {
 	private final Object bean;
 	private final Method method;
+	private final Invoker invoker;
 	private final HttpMethod httpMethod;
 	private final String path;
 	private final Map<String, Parameter> parameters;
+	private final String[] pathVariables;
+	private final Execution.Mode execution;
+	private final long timeout;
 	private final Set<Class<? extends Annotation>> annotations;
 	private Map<Class<? extends Annotation>, Set<Interceptor>> interceptors = Collections.emptyMap();
+	private ParameterBinding[] bindings;
 
 	public MethodAction(Object bean, Method method, HttpMethod httpMethod, String path, Map<String, Parameter> parameters) {
 		this.bean = bean;
 		this.method = method;
+		this.invoker = new Invoker(bean, method);
 		this.httpMethod = httpMethod;
 		this.path = path;
 		this.parameters = parameters;
+		this.pathVariables = pathVariables(path);
+		this.execution = execution(bean, method);
+		this.timeout = timeout(method, httpMethod);
 
 		Annotation[] annotations = method.getAnnotations();
 
@@ -43,6 +57,47 @@ public class MethodAction implements Action {
 		}
 	}
 
+	private static String[] pathVariables(String path) {
+		List<String> pathVariables = Lists.newArrayList();
+
+		for (String name : StringUtils.split(path, Context.PATH_DELIMITER)) {
+			if (Context.PATH_CATCH_ALL.equals(name)) {
+				pathVariables.add(null);
+				continue;
+			}
+
+			if (!name.startsWith("{") || !name.endsWith("}")) {
+				continue;
+			}
+
+			Matcher matcher = Context.PATH_VARIABLE_PATTERN.matcher(name);
+			pathVariables.add(matcher.find() ? matcher.group(1) : null); // keeps the position of {var} segments
+		}
+
+		return pathVariables.toArray(new String[pathVariables.size()]);
+	}
+
+	private static Execution.Mode execution(Object bean, Method method) {
+		Execution execution = method.getAnnotation(Execution.class);
+
+		if (execution == null) {
+			execution = AnnotationUtils.findAnnotation(bean.getClass(), Execution.class);
+		}
+
+		return execution == null ? null : execution.value();
+	}
+
+	private static long timeout(Method method, HttpMethod httpMethod) {
+		for (Annotation annotation : method.getAnnotations()) {
+			if (Context.getMvcAnnotations().get(annotation.annotationType()) == httpMethod) {
+				Object timeout = AnnotationUtils.getValue(annotation, "timeout");
+				return timeout instanceof Long ? (Long) timeout : -1L;
+			}
+		}
+
+		return -1L;
+	}
+
 	public Object bean() {
 		return bean;
 	}
@@ -51,6 +106,10 @@ public class MethodAction implements Action {
 		return method;
 	}
 
+	public Invoker invoker() {
+		return invoker;
+	}
+
 	public HttpMethod httpMethod() {
 		return httpMethod;
 	}
@@ -59,6 +118,28 @@ public class MethodAction implements Action {
 		return path;
 	}
 
+	public Execution.Mode execution() {
+		return execution;
+	}
+
+	public long timeout() {
+		return timeout;
+	}
+
+	public String[] pathVariables() {
+		return pathVariables;
+	}
+
+	public int pathVariableIndex(String name) {
+		for (int i = 0; i < pathVariables.length; i++) {
+			if (pathVariables[i] != null && pathVariables[i].equals(name)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
 	public Map<String, Parameter> parameters() {
 		return parameters;
 	}
@@ -75,6 +156,14 @@ public class MethodAction implements Action {
 		this.interceptors = interceptors;
 	}
 
+	public ParameterBinding[] bindings() {
+		return bindings;
+	}
+
+	public void bindings(ParameterBinding[] bindings) {
+		this.bindings = bindings;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
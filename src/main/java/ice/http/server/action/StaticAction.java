@@ -1,6 +1,15 @@
 package ice.http.server.action;
 
+import com.google.common.hash.Hashing;
+import ice.http.server.FilePart;
+import ice.http.server.utils.ConditionalUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.io.File;
+
 public class StaticAction implements Action {
+	private static final boolean DIRECT = Boolean.valueOf(System.getProperty("cache.static.direct", "false"));
 	private final String path;
 	private final StaticContent staticContent;
 
@@ -13,21 +22,96 @@ public class StaticAction implements Action {
 		return path;
 	}
 
-	public byte[] contents() {
-		return staticContent == null ? null : staticContent.contents;
+	public ChannelBuffer contents() {
+		return staticContent == null || staticContent.contents == null ? null : staticContent.contents.duplicate();
+	}
+
+	public File file() {
+		return staticContent == null ? null : staticContent.file;
 	}
 
 	public long timestamp() {
 		return staticContent == null ? System.currentTimeMillis() : staticContent.timestamp;
 	}
 
+	public String etag() {
+		return staticContent == null ? null : staticContent.etag;
+	}
+
+	public ChannelBuffer gzipped() {
+		return staticContent == null || staticContent.gzipped == null ? null : staticContent.gzipped.duplicate();
+	}
+
+	public String gzippedEtag() {
+		return staticContent == null ? null : staticContent.gzippedEtag;
+	}
+
+	public String lastModified() {
+		return staticContent == null ? ConditionalUtils.format(timestamp()) : staticContent.lastModified;
+	}
+
 	public static class StaticContent {
-		private final byte[] contents;
+		private final ChannelBuffer contents;
+		private final ChannelBuffer gzipped; // compressed once when the content type allows it
+		private final File file;
 		private final long timestamp;
+		private final String etag;
+		private final String gzippedEtag;
+		private final String lastModified;
 
 		public StaticContent(byte[] contents, long timestamp) {
-			this.contents = contents;
+			this(contents, null, timestamp);
+		}
+
+		public StaticContent(byte[] contents, byte[] gzipped, long timestamp) {
+			this.contents = toChannelBuffer(contents);
+			this.gzipped = toChannelBuffer(gzipped);
+			this.file = null;
+			this.timestamp = timestamp;
+			String hash = contents == null ? null : Hashing.murmur3_128().hashBytes(contents).toString();
+			this.etag = hash == null ? null : "\"" + hash + "\"";
+			this.gzippedEtag = hash == null || gzipped == null ? null : "\"" + hash + "-gzip\"";
+			this.lastModified = ConditionalUtils.format(timestamp);
+		}
+
+		// too large for the static file cache and read again on each request, so neither hashed nor precompressed
+		public StaticContent(byte[] contents, long timestamp, String etag) {
+			this.contents = toChannelBuffer(contents);
+			this.gzipped = null;
+			this.file = null;
+			this.timestamp = timestamp;
+			this.etag = etag;
+			this.gzippedEtag = null;
+			this.lastModified = ConditionalUtils.format(timestamp);
+		}
+
+		public StaticContent(File file, long timestamp) {
+			this.contents = null;
+			this.gzipped = null;
+			this.file = file;
 			this.timestamp = timestamp;
+			this.etag = FilePart.etag(file);
+			this.gzippedEtag = null;
+			this.lastModified = ConditionalUtils.format(timestamp);
+		}
+
+		// bytes held in memory, the weight of this content in the static file cache
+		public int weight() {
+			return Math.max(1, (contents == null ? 0 : contents.capacity()) + (gzipped == null ? 0 : gzipped.capacity()));
+		}
+
+		private static ChannelBuffer toChannelBuffer(byte[] bytes) {
+			if (bytes == null) {
+				return null;
+			}
+
+			if (!DIRECT) {
+				return ChannelBuffers.wrappedBuffer(bytes);
+			}
+
+			ChannelBuffer buffer = ChannelBuffers.directBuffer(bytes.length);
+			buffer.writeBytes(bytes);
+			return buffer;
 		}
 	}
 }
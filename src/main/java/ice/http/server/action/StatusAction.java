@@ -2,13 +2,22 @@ package ice.http.server.action;
 
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class StatusAction implements Action {
 	private final String path;
 	private final HttpResponseStatus status;
+	private final Map<String, String> headers;
 
 	public StatusAction(String path, HttpResponseStatus status) {
+		this(path, status, Collections.<String, String>emptyMap());
+	}
+
+	public StatusAction(String path, HttpResponseStatus status, Map<String, String> headers) {
 		this.path = path;
 		this.status = status;
+		this.headers = headers;
 	}
 
 	public String path() {
@@ -18,4 +27,8 @@ public class StatusAction implements Action {
 	public HttpResponseStatus status() {
 		return status;
 	}
+
+	public Map<String, String> headers() {
+		return headers;
+	}
 }
@@ -13,6 +13,8 @@ public @interface Delete {
 
 	Class<? extends View> view() default View.class;
 
+	long timeout() default -1L; // milliseconds for the response to be ready, negative falls back to Settings.requestTimeout
+
 	String summary() default "";
 
 	String description() default "";
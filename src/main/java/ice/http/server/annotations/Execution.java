@@ -0,0 +1,16 @@
+package ice.http.server.annotations;
+
+import java.lang.annotation.*;
+
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Execution {
+	Mode value();
+
+	enum Mode {
+		INLINE, // on the i/o worker, for cheap actions
+		EXECUTOR, // on the business executor of the server, inline when none is configured
+		VIRTUAL // on a virtual thread of its own, or a platform pool before jdk 21, for actions that mostly block
+	}
+}
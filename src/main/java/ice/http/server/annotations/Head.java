@@ -0,0 +1,21 @@
+package ice.http.server.annotations;
+
+import ice.http.server.view.View;
+
+import java.lang.annotation.*;
+
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Method(Method.HttpMethod.HEAD)
+public @interface Head {
+	String[] value();
+
+	Class<? extends View> view() default View.class;
+
+	long timeout() default -1L; // milliseconds for the response to be ready, negative falls back to Settings.requestTimeout
+
+	String summary() default "";
+
+	String description() default "";
+}
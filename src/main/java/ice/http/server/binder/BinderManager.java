@@ -3,6 +3,7 @@ package ice.http.server.binder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import ice.http.server.*;
+import ice.http.server.action.MethodAction;
 import ice.http.server.param.ConverterManager;
 import ice.http.server.param.ValidationException;
 import ice.http.server.param.ValidatorManager;
@@ -31,6 +32,7 @@ public class BinderManager implements SettingsAware, InitializingBean, Applicati
 	private ValidatorManager validatorManager;
 	private final Map<Class<?>, Binder> binders = Maps.newHashMap();
 	private final Logger logger = LoggerFactory.getLogger(BinderManager.class);
+	private static final ParameterBinding[] EMPTY_BINDINGS = new ParameterBinding[0];
 
 	@Override
 	public void setSettings(Settings settings) {
@@ -38,6 +40,11 @@ public class BinderManager implements SettingsAware, InitializingBean, Applicati
 	}
 
 	public Object bind(Request request, Response response, Parameter parameter, Map<String, List<String>> requestParams) {
+		return bind(request, response, getBinding(parameter), requestParams);
+	}
+
+	public Object bind(Request request, Response response, ParameterBinding binding, Map<String, List<String>> requestParams) {
+		Parameter parameter = binding.parameter;
 		List<String> paramValues = requestParams.get(parameter.paramName);
 		List<Object> convertedValues = null;
 
@@ -45,17 +52,17 @@ public class BinderManager implements SettingsAware, InitializingBean, Applicati
 			convertedValues = Lists.newArrayListWithExpectedSize(paramValues.size());
 
 			for (String paramValue : paramValues) {
-				Object convertedValue = converterManager.convert(request, parameter, paramValue);
+				Object convertedValue = binding.converter == null ? null : binding.converter.convert(request, parameter, paramValue);
 				convertedValues.add(convertedValue == null ? paramValue : convertedValue);
 			}
 		}
 
-		Object bound = bind0(request, response, parameter, convertedValues);
+		Object bound = bind0(request, response, binding, convertedValues);
 
 		boolean valid = true;
 
 		try {
-			Annotation annotation = validatorManager.validate(bound, parameter);
+			Annotation annotation = validatorManager.validate(bound, binding.validators);
 
 			if (annotation != null) {
 				valid = false;
@@ -71,43 +78,80 @@ public class BinderManager implements SettingsAware, InitializingBean, Applicati
 		return bound;
 	}
 
-	private Object bind0(Request request, Response response, Parameter parameter, List<Object> values) {
+	private Object bind0(Request request, Response response, ParameterBinding binding, List<Object> values) {
 		if (CollectionUtils.isEmpty(values)) {
-			return bind1(request, response, parameter, null);
+			return bind1(request, response, binding, null);
 		}
 
-		Class<?> clazz = parameter.clazz;
+		Parameter parameter = binding.parameter;
 
-		if (clazz.isArray()) {
+		if (parameter.clazz.isArray()) {
 			Object array = Array.newInstance(parameter.bindClass, values.size());
 
 			for (int i = 0; i < values.size(); i++) {
-				Array.set(array, i, bind1(request, response, parameter, values.get(i)));
+				Array.set(array, i, bind1(request, response, binding, values.get(i)));
 			}
 
 			return array;
 		} else {
-			return bind1(request, response, parameter, values.iterator().next());
+			return bind1(request, response, binding, values.iterator().next());
 		}
 	}
 
-	private Object bind1(Request request, Response response, Parameter parameter, Object value) {
-		Binder binder = binders.get(parameter.bindClass);
+	private Object bind1(Request request, Response response, ParameterBinding binding, Object value) {
+		if (binding.binder == null) {
+			return value;
+		}
+
+		return binding.binder.bind(request, response, binding.parameter, value);
+	}
+
+	private Binder getBinder(Class<?> bindClass) {
+		Binder binder = binders.get(bindClass);
 
 		if (binder == null) {
 			for (Entry<Class<?>, Binder> entry : binders.entrySet()) {
-				if (entry.getKey().isAssignableFrom(parameter.bindClass)) {
+				if (entry.getKey().isAssignableFrom(bindClass)) {
 					binder = entry.getValue();
 					break;
 				}
 			}
 		}
 
-		if (binder == null) {
-			return value;
+		return binder;
+	}
+
+	private ParameterBinding getBinding(Parameter parameter) {
+		return new ParameterBinding(parameter, getBinder(parameter.bindClass), converterManager.getConverter(parameter), validatorManager.getValidators(parameter));
+	}
+
+	public ParameterBinding[] getBindings(MethodAction methodAction) {
+		ParameterBinding[] bindings = methodAction.bindings();
+
+		if (bindings == null) {
+			addBindings(methodAction);
+			bindings = methodAction.bindings();
+		}
+
+		return bindings;
+	}
+
+	public void addBindings(MethodAction methodAction) {
+		Map<String, Parameter> parameters = methodAction.parameters();
+
+		if (CollectionUtils.isEmpty(parameters)) {
+			methodAction.bindings(EMPTY_BINDINGS);
+			return;
+		}
+
+		int i = 0;
+		ParameterBinding[] bindings = new ParameterBinding[parameters.size()];
+
+		for (Parameter parameter : parameters.values()) {
+			bindings[i++] = getBinding(parameter);
 		}
 
-		return binder.bind(request, response, parameter, value);
+		methodAction.bindings(bindings);
 	}
 
 	private void registerBinder(String basePackage) {
@@ -0,0 +1,26 @@
+package ice.http.server.binder;
+
+import ice.http.server.Parameter;
+import ice.http.server.param.AnnotatedValidator;
+import ice.http.server.param.Converter;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+public class ParameterBinding {
+	public final Parameter parameter;
+	public final Binder binder;
+	public final Converter converter;
+	public final AnnotatedValidator[] validators;
+
+	public ParameterBinding(Parameter parameter, Binder binder, Converter converter, AnnotatedValidator[] validators) {
+		this.parameter = parameter;
+		this.binder = binder;
+		this.converter = converter;
+		this.validators = validators;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+	}
+}
@@ -2,18 +2,24 @@ package ice.http.server.dispatcher;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import ice.http.server.Context;
-import ice.http.server.Parameter;
 import ice.http.server.Request;
 import ice.http.server.Response;
 import ice.http.server.action.MethodAction;
 import ice.http.server.binder.BinderManager;
+import ice.http.server.binder.ParameterBinding;
+import ice.http.server.router.RouteMatch;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ReflectionUtils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 
 public final class DispatcherUtils {
@@ -21,6 +27,29 @@ public final class DispatcherUtils {
 		throw new UnsupportedOperationException();
 	}
 
+	public static Map<String, List<String>> getPathVariables(MethodAction methodAction, Request request) {
+		RouteMatch routeMatch = request.routeMatch;
+
+		if (routeMatch == null || routeMatch.action() != methodAction) {
+			return getPathVariables(methodAction, request.path);
+		}
+
+		return getPathVariables(routeMatch);
+	}
+
+	static Map<String, List<String>> getPathVariables(RouteMatch routeMatch) {
+		String[] names = ((MethodAction) routeMatch.action()).pathVariables();
+		Map<String, List<String>> pathVariables = Maps.newHashMapWithExpectedSize(names.length);
+
+		for (int i = 0; i < names.length && i < routeMatch.variableCount(); i++) {
+			if (names[i] != null) {
+				pathVariables.put(names[i], Lists.newArrayList(routeMatch.variable(i)));
+			}
+		}
+
+		return pathVariables;
+	}
+
 	public static Map<String, List<String>> getPathVariables(MethodAction methodAction, String requestPath) {
 		String[] paths = StringUtils.split(methodAction.path(), Context.PATH_DELIMITER);
 		String[] requestPaths = StringUtils.split(requestPath, Context.PATH_DELIMITER);
@@ -29,9 +58,16 @@ public final class DispatcherUtils {
 		for (int i = 0; i < paths.length; i++) {
 			Matcher matcher = Context.PATH_VARIABLE_PATTERN.matcher(paths[i]);
 
-			if (matcher.find()) {
-				pathVariables.put(matcher.group(1), Lists.newArrayList(requestPaths[i]));
+			if (!matcher.find() || i >= requestPaths.length) {
+				continue;
+			}
+
+			if (Context.PATH_CATCH_ALL.equals(matcher.group(2))) {
+				pathVariables.put(matcher.group(1), Lists.newArrayList(StringUtils.join(requestPaths, Context.PATH_DELIMITER, i, requestPaths.length)));
+				break;
 			}
+
+			pathVariables.put(matcher.group(1), Lists.newArrayList(requestPaths[i]));
 		}
 
 		return pathVariables;
@@ -39,17 +75,62 @@ public final class DispatcherUtils {
 
 	public static Object invoke(MethodAction methodAction, Request request, Response response, BinderManager binderManager) {
 		if (CollectionUtils.isEmpty(methodAction.parameters())) {
-			return ReflectionUtils.invokeMethod(methodAction.method(), methodAction.bean());
+			return methodAction.invoker().invoke();
 		}
 
-		List<Object> args = Lists.newArrayList();
-		Map<String, List<String>> requestParams = Maps.newHashMap(request.params);
-		requestParams.putAll(getPathVariables(methodAction, request.path));
+		ParameterBinding[] bindings = binderManager.getBindings(methodAction);
+		Object[] args = new Object[bindings.length];
+		Map<String, List<String>> requestParams = getRequestParams(methodAction, request);
 
-		for (Map.Entry<String, Parameter> entry : methodAction.parameters().entrySet()) {
-			args.add(binderManager.bind(request, response, entry.getValue(), requestParams));
+		for (int i = 0; i < bindings.length; i++) {
+			args[i] = binderManager.bind(request, response, bindings[i], requestParams);
 		}
 
-		return ReflectionUtils.invokeMethod(methodAction.method(), methodAction.bean(), args.toArray(new Object[args.size()]));
+		return methodAction.invoker().invoke(args);
+	}
+
+	private static Map<String, List<String>> getRequestParams(MethodAction methodAction, Request request) {
+		RouteMatch routeMatch = request.routeMatch;
+
+		if (routeMatch != null && routeMatch.action() == methodAction) {
+			return routeMatch.variableCount() == 0 ? request.params : new LayeredParams(routeMatch, request.params);
+		}
+
+		if (methodAction.pathVariables().length == 0) {
+			return request.params;
+		}
+
+		return new LayeredParams(getPathVariables(methodAction, request.path), request.params);
+	}
+
+	// CompletionStage and ListenableFuture results are completed asynchronously, anything else is not
+	@SuppressWarnings("unchecked")
+	public static ListenableFuture<Object> toListenableFuture(Object result) {
+		if (result instanceof ListenableFuture) {
+			return (ListenableFuture<Object>) result;
+		}
+
+		if (!(result instanceof CompletionStage)) {
+			return null;
+		}
+
+		final CompletionStage<Object> stage = (CompletionStage<Object>) result;
+		final SettableFuture<Object> future = SettableFuture.create();
+
+		stage.whenComplete((value, e) -> {
+			if (e == null) {
+				future.set(value);
+			} else {
+				future.setException(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+			}
+		});
+
+		future.addListener(() -> {
+			if (future.isCancelled() && stage instanceof Future) {
+				((Future<?>) stage).cancel(true);
+			}
+		}, MoreExecutors.sameThreadExecutor());
+
+		return future;
 	}
 }
@@ -1,5 +1,10 @@
 package ice.http.server.dispatcher;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import ice.http.server.Request;
 import ice.http.server.Response;
 import ice.http.server.Settings;
@@ -14,9 +19,14 @@ import ice.http.server.annotations.Catch;
 import ice.http.server.annotations.Finally;
 import ice.http.server.annotations.Method.HttpMethod;
 import ice.http.server.binder.BinderManager;
+import ice.http.server.exception.TimeoutException;
+import ice.http.server.param.Validation;
 import ice.http.server.utils.BeanUtils;
 import ice.http.server.view.View;
 import ice.http.server.view.ViewResolver;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -27,12 +37,16 @@ import java.util.AbstractMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class HttpActionDispatcher extends MethodActionDispatcher implements SettingsAware, ApplicationContextAware {
 	private Settings settings;
 	private BinderManager binderManager;
 	private ViewResolver viewResolver;
 	private InterceptorManager interceptorManager;
+	private Timer timer;
 
 	@Override
 	public void setSettings(Settings settings) {
@@ -67,26 +81,134 @@ public class HttpActionDispatcher extends MethodActionDispatcher implements Sett
 
 	@Override
 	protected Entry<Object, View> dispatch(Request request, Response response, MethodAction methodAction) {
+		return dispatch(null, request, response, methodAction);
+	}
+
+	@Override
+	protected Entry<Object, View> dispatch(ChannelHandlerContext context, Request request, Response response, MethodAction methodAction) {
 		Map<Class<? extends Annotation>, Set<Interceptor>> interceptors = methodAction.interceptors();
+		boolean deferred = false;
 
 		try {
 			interceptorManager.intercept(methodAction, interceptors.get(Before.class), request, response);
 			Object result = DispatcherUtils.invoke(methodAction, request, response, binderManager);
-			interceptorManager.intercept(methodAction, interceptors.get(After.class), request, response);
-			return getModelAndView(result, request.method, methodAction.method());
+			ListenableFuture<Object> future = DispatcherUtils.toListenableFuture(result);
+
+			if (future != null) {
+				response.deferred = defer(context, future, request, response, methodAction);
+				deferred = true;
+				return DEFERRED;
+			}
+
+			return complete(result, request, response, methodAction);
 		} catch (Throwable e) {
-			Throwable cause = e.getCause() == null ? e : e.getCause();
-			Interceptor interceptor = interceptorManager.findProperInterceptor(interceptors.get(Catch.class), cause);
+			return caught(e, e.getCause() == null ? e : e.getCause(), request, response, methodAction);
+		} finally {
+			if (!deferred) {
+				interceptorManager.intercept(methodAction, interceptors.get(Finally.class), request, response);
+			}
+		}
+	}
+
+	private Entry<Object, View> complete(Object result, Request request, Response response, MethodAction methodAction) {
+		interceptorManager.intercept(methodAction, methodAction.interceptors().get(After.class), request, response);
+		return getModelAndView(result, request.method, methodAction.method());
+	}
+
+	private Entry<Object, View> caught(Throwable e, Throwable cause, Request request, Response response, MethodAction methodAction) {
+		Interceptor interceptor = interceptorManager.findProperInterceptor(methodAction.interceptors().get(Catch.class), cause);
+
+		if (interceptor == null) {
+			throw Throwables.propagate(e);
+		}
+
+		Object result = interceptorManager.intercept(interceptor, request, response, cause);
+		Catch annotation = interceptor.method().getAnnotation(Catch.class);
+		return getModelAndView(result, annotation.view());
+	}
+
+	// after, catch and finally interceptors and the view run on the thread completing the result.
+	// when the request's deadline passes first the timer only cancels the result, the i/o worker of the channel finishes with the timeout.
+	private ListenableFuture<Void> defer(final ChannelHandlerContext context, final ListenableFuture<Object> future, final Request request, final Response response, final MethodAction methodAction) {
+		final SettableFuture<Void> completion = SettableFuture.create();
+		final AtomicBoolean done = new AtomicBoolean();
+		final Validation validation = Validation.get();
+		final Timeout timeout;
 
-			if (interceptor == null) {
-				throw e;
+		final long remaining = request.remaining();
+
+		if (remaining >= 0 && timer != null) {
+			timeout = timer.newTimeout(t -> {
+				if (!done.compareAndSet(false, true)) {
+					return;
+				}
+
+				future.cancel(settings.isInterruptOnTimeout());
+				Runnable timedOut = () -> finish(null, new TimeoutException(request.path, remaining), request, response, methodAction, validation, completion);
+
+				if (context == null) {
+					timedOut.run();
+				} else {
+					context.getPipeline().execute(timedOut);
+				}
+			}, remaining, TimeUnit.MILLISECONDS);
+		} else {
+			timeout = null;
+		}
+
+		future.addListener(() -> {
+			if (!done.compareAndSet(false, true)) {
+				return;
+			}
+
+			if (timeout != null) {
+				timeout.cancel();
+			}
+
+			try {
+				finish(Uninterruptibles.getUninterruptibly(future), null, request, response, methodAction, validation, completion);
+			} catch (ExecutionException e) {
+				finish(null, e.getCause(), request, response, methodAction, validation, completion);
+			} catch (Throwable e) {
+				finish(null, e, request, response, methodAction, validation, completion);
 			}
+		}, MoreExecutors.sameThreadExecutor());
 
-			Object result = interceptorManager.intercept(interceptor, request, response, cause);
-			Catch annotation = interceptor.method().getAnnotation(Catch.class);
-			return getModelAndView(result, annotation.view());
+		return completion;
+	}
+
+	private void finish(Object result, Throwable cause, Request request, Response response, MethodAction methodAction, Validation validation, SettableFuture<Void> completion) {
+		Request holding = Request.REQUEST_HOLDER.get();
+		Validation validating = Validation.get();
+		Request.REQUEST_HOLDER.set(request);
+		Validation.set(validation);
+
+		try {
+			Entry<Object, View> modelAndView = null;
+
+			try {
+				if (cause == null) {
+					try {
+						modelAndView = complete(result, request, response, methodAction);
+					} catch (Throwable e) {
+						cause = e.getCause() == null ? e : e.getCause();
+					}
+				}
+
+				if (cause != null) {
+					modelAndView = caught(cause, cause, request, response, methodAction);
+				}
+			} finally {
+				interceptorManager.intercept(methodAction, methodAction.interceptors().get(Finally.class), request, response);
+			}
+
+			apply(modelAndView, request, response);
+			completion.set(null);
+		} catch (Throwable e) {
+			completion.setException(e);
 		} finally {
-			interceptorManager.intercept(methodAction, interceptors.get(Finally.class), request, response);
+			Request.REQUEST_HOLDER.set(holding);
+			Validation.set(validating);
 		}
 	}
 
@@ -95,5 +217,6 @@ public class HttpActionDispatcher extends MethodActionDispatcher implements Sett
 		this.binderManager = BeanUtils.getBean(settings, applicationContext, BinderManager.class);
 		this.viewResolver = BeanUtils.getBean(settings, applicationContext, ViewResolver.class);
 		this.interceptorManager = BeanUtils.getBean(settings, applicationContext, InterceptorManager.class);
+		this.timer = BeanUtils.getBean(settings, applicationContext, Timer.class);
 	}
 }
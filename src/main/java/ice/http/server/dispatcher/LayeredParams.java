@@ -0,0 +1,70 @@
+package ice.http.server.dispatcher;
+
+import com.google.common.collect.Maps;
+import ice.http.server.router.RouteMatch;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// read-only view of the path variables over the request params, nothing is copied unless the whole map is iterated.
+final class LayeredParams extends AbstractMap<String, List<String>> {
+	private final RouteMatch routeMatch;
+	private final Map<String, List<String>> pathVariables;
+	private final Map<String, List<String>> params;
+
+	LayeredParams(RouteMatch routeMatch, Map<String, List<String>> params) {
+		this.routeMatch = routeMatch;
+		this.pathVariables = null;
+		this.params = params;
+	}
+
+	LayeredParams(Map<String, List<String>> pathVariables, Map<String, List<String>> params) {
+		this.routeMatch = null;
+		this.pathVariables = pathVariables;
+		this.params = params;
+	}
+
+	@Override
+	public List<String> get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+
+		if (routeMatch != null) {
+			String value = routeMatch.variable((String) key);
+
+			if (value != null) {
+				return Collections.singletonList(value);
+			}
+		} else if (pathVariables != null) {
+			List<String> values = pathVariables.get(key);
+
+			if (values != null) {
+				return values;
+			}
+		}
+
+		return params.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null || params.containsKey(key);
+	}
+
+	@Override
+	public Set<Entry<String, List<String>>> entrySet() {
+		Map<String, List<String>> merged = Maps.newHashMap(params);
+
+		if (routeMatch != null) {
+			merged.putAll(DispatcherUtils.getPathVariables(routeMatch));
+		} else if (pathVariables != null) {
+			merged.putAll(pathVariables);
+		}
+
+		return Collections.unmodifiableMap(merged).entrySet();
+	}
+}
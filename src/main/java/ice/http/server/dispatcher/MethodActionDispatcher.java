@@ -8,19 +8,33 @@ import ice.http.server.exception.InvalidViewException;
 import ice.http.server.view.View;
 import org.jboss.netty.channel.ChannelHandlerContext;
 
+import java.util.AbstractMap;
 import java.util.Map.Entry;
 
 public abstract class MethodActionDispatcher implements ActionDispatcher {
+	protected static final Entry<Object, View> DEFERRED = new AbstractMap.SimpleImmutableEntry<>(null, null); // the view is applied by the subclass when the result completes, see Response.deferred
+
 	protected abstract Entry<Object, View> dispatch(Request request, Response response, MethodAction methodAction);
 
+	// the context is only needed by dispatchers that complete the response off the dispatching thread
+	protected Entry<Object, View> dispatch(ChannelHandlerContext context, Request request, Response response, MethodAction methodAction) {
+		return dispatch(request, response, methodAction);
+	}
+
 	@Override
 	public void dispatch(ChannelHandlerContext context, Action action, Request request, Response response) {
 		MethodAction methodAction = (MethodAction) action;
 		request.actionMethod = methodAction.method();
 		request.actionClass = methodAction.bean().getClass();
 
-		Entry<Object, View> modelAndView = dispatch(request, response, methodAction);
+		Entry<Object, View> modelAndView = dispatch(context, request, response, methodAction);
+
+		if (modelAndView != DEFERRED) {
+			apply(modelAndView, request, response);
+		}
+	}
 
+	protected void apply(Entry<Object, View> modelAndView, Request request, Response response) {
 		if (modelAndView == null) {
 			throw new InvalidViewException(request.path);
 		}
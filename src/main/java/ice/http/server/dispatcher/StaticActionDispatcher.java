@@ -3,24 +3,16 @@ package ice.http.server.dispatcher;
 import ice.http.server.*;
 import ice.http.server.action.Action;
 import ice.http.server.action.StaticAction;
+import ice.http.server.utils.ConditionalUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.time.FastDateFormat;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.springframework.beans.factory.InitializingBean;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
-
 public class StaticActionDispatcher implements SettingsAware, ActionDispatcher, InitializingBean {
 	private Settings settings;
 	private boolean needCache;
-	private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
 
 	public void setSettings(Settings settings) {
 		this.settings = settings;
@@ -31,55 +23,113 @@ public class StaticActionDispatcher implements SettingsAware, ActionDispatcher,
 		return StaticAction.class;
 	}
 
-	private boolean needCache(Request request, StaticAction staticAction) {
-		String ifModifiedSince = request.header(HttpHeaders.Names.IF_MODIFIED_SINCE);
+	private boolean needCache(Request request, StaticAction staticAction, String etag) {
+		return needCache && ConditionalUtils.isNotModified(request, etag, staticAction.lastModified(), staticAction.timestamp());
+	}
 
-		if (!needCache || StringUtils.isBlank(ifModifiedSince)) {
+	// the precompressed variant is only sent whole, ranges are served from the raw bytes
+	private boolean acceptGzip(Request request, StaticAction staticAction) {
+		if (staticAction.gzipped() == null || request.header(HttpHeaders.Names.RANGE) != null) {
 			return false;
 		}
 
-		SimpleDateFormat simpleDateFormat = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+		String acceptEncoding = request.header(HttpHeaders.Names.ACCEPT_ENCODING);
+		return acceptEncoding != null && gzipQuality(acceptEncoding) > 0;
+	}
 
-		try {
-			Date ifModifiedSinceDate = simpleDateFormat.parse(ifModifiedSince);
-			return ifModifiedSinceDate.getTime() / 1000 == staticAction.timestamp() / 1000;
-		} catch (ParseException ignored) {
+	// the q-value of gzip in Accept-Encoding, that of * when gzip is not listed, 0 when neither is
+	private static float gzipQuality(String acceptEncoding) {
+		float gzip = -1;
+		float any = -1;
+
+		for (String coding : StringUtils.split(acceptEncoding, ',')) {
+			int index = coding.indexOf(';');
+			String name = (index < 0 ? coding : coding.substring(0, index)).trim();
+			float quality = index < 0 ? 1 : quality(coding.substring(index + 1));
+
+			if (HttpHeaders.Values.GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+				gzip = Math.max(gzip, quality);
+			} else if ("*".equals(name)) {
+				any = Math.max(any, quality);
+			}
 		}
 
-		return false;
+		return gzip >= 0 ? gzip : Math.max(0, any);
+	}
+
+	private static float quality(String parameters) {
+		for (String parameter : StringUtils.split(parameters, ';')) {
+			int index = parameter.indexOf('=');
+
+			if (index > 0 && "q".equalsIgnoreCase(parameter.substring(0, index).trim())) {
+				try {
+					return Float.parseFloat(parameter.substring(index + 1).trim());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+
+		return 1;
+	}
+
+	private void output(Request request, Response response, StaticAction staticAction, boolean gzip) {
+		response.contentType = Context.getContentType(staticAction.path());
+
+		if (staticAction.gzipped() != null) {
+			response.header(HttpHeaders.Names.VARY, HttpHeaders.Names.ACCEPT_ENCODING);
+		}
+
+		if (gzip) {
+			response.content(staticAction.gzipped(), null);
+			response.header(HttpHeaders.Names.CONTENT_ENCODING, HttpHeaders.Values.GZIP);
+			return;
+		}
+
+		String range = ConditionalUtils.range(request, staticAction.etag(), staticAction.lastModified());
+
+		if (staticAction.file() != null) {
+			response.file(staticAction.file(), range);
+		} else if (staticAction.contents() != null) {
+			response.content(staticAction.contents(), range);
+		}
 	}
 
 	@Override
 	public void dispatch(ChannelHandlerContext context, Action action, Request request, Response response) {
 		StaticAction staticAction = (StaticAction) action;
 
-		if (staticAction.contents() == null) {
+		if (staticAction.contents() == null && staticAction.file() == null) {
 			response.status = HttpResponseStatus.MOVED_PERMANENTLY;
 			response.headers.put(HttpHeaders.Names.LOCATION, new Header(HttpHeaders.Names.LOCATION, staticAction.path() + Context.PATH_DELIMITER));
 		}
 
+		boolean gzip = acceptGzip(request, staticAction);
+
 		if (!settings.isCache()) {
-			response.output = staticAction.contents();
-			response.contentType = Context.getContentType(staticAction.path());
+			output(request, response, staticAction, gzip);
 			return;
 		}
 
-		if (needCache(request, staticAction)) {
+		String etag = gzip ? staticAction.gzippedEtag() : staticAction.etag();
+
+		long now = System.currentTimeMillis();
+		response.header(HttpHeaders.Names.DATE, ConditionalUtils.format(now));
+
+		if (etag != null) {
+			response.header(HttpHeaders.Names.ETAG, etag);
+		}
+
+		if (needCache(request, staticAction, etag)) {
 			response.status = HttpResponseStatus.NOT_MODIFIED;
-			response.header(HttpHeaders.Names.DATE, FastDateFormat.getInstance(HTTP_DATE_FORMAT, TimeZone.getTimeZone("GMT"), Locale.US).format(Calendar.getInstance()));
 			return;
 		}
 
-		response.output = staticAction.contents();
-		response.contentType = Context.getContentType(staticAction.path());
+		output(request, response, staticAction, gzip);
 
-		Calendar calendar = Calendar.getInstance();
-		FastDateFormat dateFormat = FastDateFormat.getInstance(HTTP_DATE_FORMAT, TimeZone.getTimeZone("GMT"), Locale.US);
-		response.header(HttpHeaders.Names.DATE, dateFormat.format(calendar));
-		calendar.add(Calendar.SECOND, settings.getCacheTtl());
-		response.header(HttpHeaders.Names.EXPIRES, dateFormat.format(calendar));
+		response.header(HttpHeaders.Names.EXPIRES, ConditionalUtils.format(now + settings.getCacheTtl() * 1000L));
 		response.header(HttpHeaders.Names.CACHE_CONTROL, "private, max-age=" + settings.getCacheTtl());
-		response.header(HttpHeaders.Names.LAST_MODIFIED, dateFormat.format(staticAction.timestamp()));
+		response.header(HttpHeaders.Names.LAST_MODIFIED, staticAction.lastModified());
 	}
 
 	@Override
@@ -6,6 +6,8 @@ import ice.http.server.action.Action;
 import ice.http.server.action.StatusAction;
 import org.jboss.netty.channel.ChannelHandlerContext;
 
+import java.util.Map;
+
 public class StatusActionDispatcher implements ActionDispatcher {
 	@Override
 	public Class<? extends Action> assignableFrom() {
@@ -14,6 +16,11 @@ public class StatusActionDispatcher implements ActionDispatcher {
 
 	@Override
 	public void dispatch(ChannelHandlerContext context, Action action, Request request, Response response) {
-		response.status = ((StatusAction) action).status();
+		StatusAction statusAction = (StatusAction) action;
+		response.status = statusAction.status();
+
+		for (Map.Entry<String, String> header : statusAction.headers().entrySet()) {
+			response.header(header.getKey(), header.getValue());
+		}
 	}
 }
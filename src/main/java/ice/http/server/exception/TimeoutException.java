@@ -0,0 +1,13 @@
+package ice.http.server.exception;
+
+public class TimeoutException extends RuntimeException {
+	private static final long serialVersionUID = -2472096521734185347L;
+
+	public TimeoutException(String message) {
+		super(message);
+	}
+
+	public TimeoutException(String path, long timeout) {
+		this(path + " is not completed in " + timeout + "ms");
+	}
+}
@@ -0,0 +1,136 @@
+package ice.http.server.handler;
+
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.handler.stream.ChunkedInput;
+import org.jboss.netty.handler.stream.ChunkedWriteHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// reads a blocking input on an executor once ChunkedWriteHandler asks for its first chunk, the i/o worker only takes the chunks
+// that are ready. at most server.response.chunk.queue chunks wait for the socket, the producer waits while the channel drains them.
+final class ExecutorChunkedInput implements ChunkedInput {
+	private final ChunkedInput input;
+	private final Executor executor;
+	private final ChannelPipeline pipeline; // its ChunkedWriteHandler is resumed on the i/o worker as chunks are queued
+	private final BlockingQueue<Object> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+	private final Logger logger = LoggerFactory.getLogger(ExecutorChunkedInput.class);
+	private volatile boolean closed;
+	private volatile Exception failure;
+	private boolean started;
+	private boolean inline; // the executor refused, the input is read on the i/o worker as before
+	private boolean endOfInput;
+
+	private static final int QUEUED_CHUNKS = Math.max(1, Integer.parseInt(System.getProperty("server.response.chunk.queue", "4")));
+	private static final Object END = new Object();
+
+	ExecutorChunkedInput(ChunkedInput input, Executor executor, ChannelPipeline pipeline) {
+		this.input = input;
+		this.executor = executor;
+		this.pipeline = pipeline;
+	}
+
+	@Override
+	public boolean hasNextChunk() throws Exception {
+		return inline ? input.hasNextChunk() : !endOfInput;
+	}
+
+	// null while the producer is behind, ChunkedWriteHandler suspends until the next chunk resumes it
+	@Override
+	public Object nextChunk() throws Exception {
+		if (!started) {
+			start();
+		}
+
+		if (inline) {
+			return input.nextChunk();
+		}
+
+		Object chunk = chunks.poll();
+
+		if (chunk != END) {
+			return chunk;
+		}
+
+		endOfInput = true;
+
+		if (failure != null) {
+			throw failure; // fails the write, so the connection is closed instead of ending a truncated body
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean isEndOfInput() throws Exception {
+		return inline ? input.isEndOfInput() : endOfInput;
+	}
+
+	@Override
+	public void close() throws Exception {
+		closed = true;
+
+		if (!started || inline) {
+			input.close();
+		}
+	}
+
+	private void start() {
+		started = true;
+
+		try {
+			executor.execute(this::produce);
+		} catch (RejectedExecutionException e) {
+			logger.debug("chunks are read on the i/o worker, executor is busy");
+			inline = true;
+		}
+	}
+
+	private void produce() {
+		try {
+			while (!closed && !input.isEndOfInput()) {
+				Object chunk = input.nextChunk();
+
+				if (chunk != null) {
+					queue(chunk);
+				}
+			}
+		} catch (Throwable e) {
+			logger.debug(e.getMessage(), e);
+			failure = e instanceof Exception ? (Exception) e : new Exception(e);
+		} finally {
+			try {
+				input.close();
+			} catch (Exception e) {
+				logger.debug(e.getMessage(), e);
+			}
+
+			try {
+				queue(END);
+			} catch (InterruptedException ignored) {
+			}
+		}
+	}
+
+	private void resume() {
+		ChunkedWriteHandler chunkedWriteHandler = pipeline.get(ChunkedWriteHandler.class);
+
+		if (chunkedWriteHandler != null) {
+			chunkedWriteHandler.resumeTransfer();
+		}
+	}
+
+	private void queue(Object chunk) throws InterruptedException {
+		while (!closed) {
+			if (chunks.offer(chunk, 100L, TimeUnit.MILLISECONDS)) {
+				pipeline.execute(this::resume);
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package ice.http.server.handler;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.stream.ChunkedInput;
+
+class HttpChunkedInput implements ChunkedInput {
+	private final ChunkedInput input;
+	private boolean lastChunkSent;
+
+	HttpChunkedInput(ChunkedInput input) {
+		this.input = input;
+	}
+
+	@Override
+	public boolean hasNextChunk() throws Exception {
+		return !lastChunkSent;
+	}
+
+	@Override
+	public Object nextChunk() throws Exception {
+		if (lastChunkSent) {
+			return null;
+		}
+
+		if (input.hasNextChunk()) {
+			ChannelBuffer buffer = (ChannelBuffer) input.nextChunk();
+
+			if (buffer != null && buffer.readable()) {
+				return new DefaultHttpChunk(buffer);
+			}
+		}
+
+		if (input.isEndOfInput()) {
+			lastChunkSent = true;
+			return HttpChunk.LAST_CHUNK;
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean isEndOfInput() throws Exception {
+		return lastChunkSent;
+	}
+
+	@Override
+	public void close() throws Exception {
+		input.close();
+	}
+}
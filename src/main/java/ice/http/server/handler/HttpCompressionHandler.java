@@ -0,0 +1,48 @@
+package ice.http.server.handler;
+
+import ice.http.server.Settings;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.jboss.netty.handler.codec.http.*;
+
+public class HttpCompressionHandler extends HttpContentCompressor {
+	private final Settings settings;
+
+	public HttpCompressionHandler(Settings settings) {
+		super(settings.getCompressionLevel());
+		this.settings = settings;
+	}
+
+	// bodies sent apart from the message (file regions) have no content here and are left alone,
+	// as are partial and already encoded responses.
+	@Override
+	protected EncoderEmbedder<ChannelBuffer> newContentEncoder(HttpMessage message, String acceptEncoding) throws Exception {
+		if (!(message instanceof HttpResponse)) {
+			return null;
+		}
+
+		HttpResponseStatus status = ((HttpResponse) message).getStatus();
+
+		if (status.getCode() < 200 || status == HttpResponseStatus.NO_CONTENT || status == HttpResponseStatus.PARTIAL_CONTENT || status == HttpResponseStatus.NOT_MODIFIED) {
+			return null;
+		}
+
+		if (message.headers().contains(HttpHeaders.Names.CONTENT_ENCODING)) {
+			return null;
+		}
+
+		long length = message.isChunked() ? Long.MAX_VALUE : message.getContent().readableBytes();
+
+		if (length == 0 || !settings.isCompressible(message.headers().get(HttpHeaders.Names.CONTENT_TYPE), length)) {
+			return null;
+		}
+
+		EncoderEmbedder<ChannelBuffer> encoder = super.newContentEncoder(message, acceptEncoding);
+
+		if (encoder != null) {
+			message.headers().add(HttpHeaders.Names.VARY, HttpHeaders.Names.ACCEPT_ENCODING);
+		}
+
+		return encoder;
+	}
+}
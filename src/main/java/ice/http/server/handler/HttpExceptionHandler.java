@@ -1,8 +1,11 @@
 package ice.http.server.handler;
 
+import ice.http.server.Context;
 import ice.http.server.Response;
 import ice.http.server.exception.NotFoundException;
+import ice.http.server.exception.TimeoutException;
 import org.apache.commons.lang.StringUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.channel.ChannelHandlerContext;
@@ -25,16 +28,18 @@ public class HttpExceptionHandler extends HttpNullableResponseHandler implements
 			logger.debug(cause.getMessage(), cause);
 		}
 
-		byte[] bytes = response.output;
+		ChannelBuffer content = response.toChannelBuffer();
 		HttpResponseStatus status = HttpResponseStatus.INTERNAL_SERVER_ERROR;
 
-		if (cause != null && (cause instanceof NotFoundException)) {
+		if (cause instanceof TimeoutException) {
+			status = HttpResponseStatus.GATEWAY_TIMEOUT;
+		} else if (cause != null && (cause instanceof NotFoundException)) {
 			if (httpNotFoundHandler == null) {
 				status = HttpResponseStatus.NOT_FOUND;
 			} else {
 				Response handledResponse = httpNotFoundHandler.handleNotFound(response.requestPath, response.contentType);
 				status = handledResponse.status;
-				bytes = handledResponse.output;
+				content = handledResponse.toChannelBuffer();
 
 				if (StringUtils.isNotBlank(handledResponse.encoding)) {
 					response.encoding = handledResponse.encoding;
@@ -49,14 +54,17 @@ public class HttpExceptionHandler extends HttpNullableResponseHandler implements
 		HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
 
 		if (status == HttpResponseStatus.MOVED_PERMANENTLY) {
-			httpResponse.headers().set(HttpHeaders.Names.LOCATION, new String(bytes));
-		} else if (bytes == null || bytes.length == 0) {
+			httpResponse.headers().set(HttpHeaders.Names.LOCATION, content.toString(Context.DEFAULT_CHARSET));
+		} else if (!content.readable()) {
 			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, "0");
 			httpResponse.setContent(ChannelBuffers.EMPTY_BUFFER);
 		} else {
 			httpResponse.headers().set(HttpHeaders.Names.CONTENT_TYPE, response.contentType + "; charset=" + response.encoding);
-			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(bytes.length));
-			httpResponse.setContent(ChannelBuffers.copiedBuffer(bytes));
+			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(content.readableBytes()));
+
+			if (!response.head) {
+				httpResponse.setContent(content);
+			}
 		}
 
 		httpResponse.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
@@ -1,27 +1,46 @@
 package ice.http.server.handler;
 
 import ice.http.server.Settings;
+import ice.http.server.action.Action;
+import ice.http.server.action.MethodAction;
+import ice.http.server.annotations.Execution;
+import ice.http.server.annotations.Method;
+import ice.http.server.router.HttpRouter;
 import ice.http.server.utils.BeanUtils;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
+import org.jboss.netty.handler.stream.ChunkedWriteHandler;
 import org.jboss.netty.handler.timeout.IdleStateHandler;
 import org.jboss.netty.util.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 public class HttpPipelineFactory implements ChannelPipelineFactory, ApplicationContextAware {
 	private Timer timer;
 	private Settings settings;
+	private Map<Execution.Mode, Executor> executors;
 	private ApplicationContext applicationContext;
 	private HttpTimeoutHandler httpTimeoutHandler;
+	private final Logger logger = LoggerFactory.getLogger(HttpPipelineFactory.class);
 
 	public HttpPipelineFactory(Timer timer, Settings settings) {
+		this(timer, settings, Collections.<Execution.Mode, Executor>emptyMap());
+	}
+
+	public HttpPipelineFactory(Timer timer, Settings settings, Map<Execution.Mode, Executor> executors) {
 		this.timer = timer;
 		this.settings = settings;
+		this.executors = executors;
 	}
 
 	@Override
@@ -29,6 +48,7 @@ public class HttpPipelineFactory implements ChannelPipelineFactory, ApplicationC
 		HttpRequestHandler httpRequestHandler = new HttpRequestHandler();
 		httpRequestHandler.setSettings(settings);
 		httpRequestHandler.setApplicationContext(applicationContext);
+		httpRequestHandler.setExecutors(executors);
 
 		ChannelPipeline pipeline = Channels.pipeline();
 
@@ -39,6 +59,12 @@ public class HttpPipelineFactory implements ChannelPipelineFactory, ApplicationC
 
 		pipeline.addLast("decoder", new HttpRequestDecoder());
 		pipeline.addLast("encoder", new HttpResponseEncoder());
+
+		if (settings.isCompression()) {
+			pipeline.addLast("compressor", new HttpCompressionHandler(settings));
+		}
+
+		pipeline.addLast("chunked", new ChunkedWriteHandler());
 		pipeline.addLast("handler", httpRequestHandler);
 
 		return pipeline;
@@ -48,5 +74,29 @@ public class HttpPipelineFactory implements ChannelPipelineFactory, ApplicationC
 	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
 		this.applicationContext = applicationContext;
 		this.httpTimeoutHandler = BeanUtils.getBean(settings, applicationContext, HttpTimeoutHandler.class);
+		warnInlineTimeouts(BeanUtils.getBean(settings, applicationContext, HttpRouter.class));
+	}
+
+	// a synchronous action run on the i/o worker keeps it until it returns, its deadline only covers a future it returns
+	private void warnInlineTimeouts(HttpRouter router) {
+		if (router == null) {
+			return;
+		}
+
+		for (Map<String, Action> paths : router.getPaths().values()) {
+			for (Action action : paths.values()) {
+				if (!(action instanceof MethodAction)) {
+					continue;
+				}
+
+				MethodAction methodAction = (MethodAction) action;
+				long timeout = methodAction.timeout() < 0 ? settings.getRequestTimeout() : methodAction.timeout();
+				Execution.Mode execution = methodAction.execution() == null ? settings.getExecution() : methodAction.execution();
+
+				if (timeout >= 0 && methodAction.httpMethod() != Method.HttpMethod.WS && !executors.containsKey(execution)) {
+					logger.warn("[timeout] {} {} runs on the i/o worker, its timeout of {}ms is only enforced when it returns a future", methodAction.httpMethod(), methodAction.path(), timeout);
+				}
+			}
+		}
 	}
 }
@@ -1,48 +1,98 @@
 package ice.http.server.handler;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import ice.http.server.*;
 import ice.http.server.action.Action;
+import ice.http.server.action.MethodAction;
+import ice.http.server.annotations.Execution;
 import ice.http.server.dispatcher.Dispatcher;
 import ice.http.server.exception.ContentParseException;
+import ice.http.server.exception.TimeoutException;
 import ice.http.server.param.Validation;
 import ice.http.server.parser.ContentParser;
 import ice.http.server.parser.Parser;
 import ice.http.server.router.HttpRouter;
+import ice.http.server.view.BlockingChunkedInput;
 import ice.http.server.utils.BeanUtils;
 import ice.http.server.websocket.WebSocketRequestHandler;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.handler.codec.http.HttpChunk;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// the pipeline is the same for every request. pipelined requests run side by side when server.pipelining.max is raised above 1,
+// and the sequencer writes their responses in the order the requests were read
 public class HttpRequestHandler extends SimpleChannelUpstreamHandler implements SettingsAware, ApplicationContextAware {
-	private Request request;
-	private Response response;
+	private Exchange reading; // the request whose body is being read
 	private Settings settings;
-	private Parser parser;
-	private boolean ready;
 	private boolean readingChunks;
+	private boolean draining;
+	private boolean closing; // a request without keep-alive was read, nothing after it is answered
+	private HttpResponseSequencer sequencer;
+	private Map<Execution.Mode, Executor> executors = Collections.emptyMap();
+	private final Queue<MessageEvent> pending = new ArrayDeque<>(); // read while too many requests are in flight
 	private HttpRouter router;
 	private Dispatcher dispatcher;
 	private ContentParser contentParser;
 	private HttpResponseHandler httpResponseHandler;
 	private HttpExceptionHandler httpExceptionHandler;
 	private WebSocketRequestHandler webSocketRequestHandler;
+	private Timer timer; // request deadlines
 	private final Logger logger = LoggerFactory.getLogger(HttpRequestHandler.class);
 
+	private static final int MAX_IN_FLIGHT = Math.max(1, Integer.parseInt(System.getProperty("server.pipelining.max", "1"))); // one request at a time unless opted in
+
 	@Override
 	public void setSettings(Settings settings) {
 		this.settings = settings;
 	}
 
+	public void setExecutors(Map<Execution.Mode, Executor> executors) {
+		this.executors = executors;
+	}
+
 	@Override
 	public void messageReceived(ChannelHandlerContext context, MessageEvent messageEvent) throws Exception {
+		if (!pending.isEmpty() || saturated()) {
+			pending.add(messageEvent);
+			context.getChannel().setReadable(false);
+			return;
+		}
+
+		receive(context, messageEvent);
+	}
+
+	// the body of a request being read is not held back, its response is reserved already
+	private boolean saturated() {
+		return !readingChunks && sequencer.inFlight() >= MAX_IN_FLIGHT;
+	}
+
+	private void receive(ChannelHandlerContext context, MessageEvent messageEvent) {
+		if (closing && !readingChunks) {
+			return;
+		}
+
 		Object message = messageEvent.getMessage();
+		boolean ready = false;
 
 		if (!readingChunks) {
 			HttpRequest httpRequest = (HttpRequest) message;
@@ -52,20 +102,14 @@ public class HttpRequestHandler extends SimpleChannelUpstreamHandler implements
 				return;
 			}
 
-			request = Request.create(httpRequest, messageEvent);
-			response = Response.create(httpRequest);
+			Request request = Request.create(httpRequest, messageEvent);
+			Response response = Response.create(httpRequest);
 
-			Request.REQUEST_HOLDER.set(request);
-
-			if (parser != null) {
-				parser.close();
-				parser = null;
-			}
-
-			parser = contentParser.getParser(request.contentType);
+			reading = new Exchange(request, response, contentParser.getParser(request.contentType), sequencer.reserve());
+			closing = !response.shouldKeepAlive;
 
 			try {
-				parser.init(httpRequest);
+				reading.parser.init(httpRequest);
 			} catch (ContentParseException e) {
 				logger.debug(e.getMessage(), e);
 				Channels.close(messageEvent.getChannel());
@@ -81,7 +125,7 @@ public class HttpRequestHandler extends SimpleChannelUpstreamHandler implements
 			HttpChunk httpChunk = (HttpChunk) message;
 
 			try {
-				parser.offer(httpChunk);
+				reading.parser.offer(httpChunk);
 			} catch (ContentParseException e) {
 				logger.debug(e.getMessage(), e);
 				Channels.close(messageEvent.getChannel());
@@ -95,33 +139,297 @@ public class HttpRequestHandler extends SimpleChannelUpstreamHandler implements
 		}
 
 		if (ready) {
-			ready = false;
-			handleMessage(context, messageEvent);
+			Exchange exchange = reading;
+			reading = null;
+			handleMessage(context, exchange);
 		}
 	}
 
-	private void handleMessage(ChannelHandlerContext context, MessageEvent messageEvent) {
+	// the request is held only while it is handled on the i/o worker, a stale one would lend its deadline to later remote calls
+	private void handleMessage(ChannelHandlerContext context, Exchange exchange) {
+		Request holding = Request.REQUEST_HOLDER.get();
+		Request.REQUEST_HOLDER.set(exchange.request);
+
+		try {
+			handle(context, exchange);
+		} finally {
+			if (holding == null) {
+				Request.REQUEST_HOLDER.remove();
+			} else {
+				Request.REQUEST_HOLDER.set(holding);
+			}
+		}
+	}
+
+	private void handle(ChannelHandlerContext context, Exchange exchange) {
 		Validation.init();
-		context.getChannel().setAttachment(response);
+		Request request = exchange.request;
+		Action action;
 
 		try {
-			parser.parse(request);
+			exchange.parser.parse(request);
 
 			try {
-				Action action = router.route(request);
-				dispatcher.dispatch(context, action, request, response);
+				action = router.route(request);
 			} catch (Throwable e) {
-				response.cause = e;
+				exchange.response.cause = e;
 				throw e;
 			}
+		} catch (Throwable e) {
+			logger.debug(e.getMessage(), e);
+			complete(exchange, httpExceptionHandler, exchange.response);
+			return;
+		}
+
+		if (action instanceof MethodAction) {
+			long timeout = ((MethodAction) action).timeout();
+			request.deadline(timeout < 0 ? settings.getRequestTimeout() : timeout);
+		}
+
+		Executor executor = executor(action);
+
+		if (executor != null) {
+			execute(context, executor, action, exchange);
+			return;
+		}
+
+		ListenableFuture<?> deferred = dispatch(context, action, exchange, null);
+
+		if (deferred != null) {
+			defer(deferred, exchange);
+		}
+	}
+
+	// only controllers leave the i/o worker, static and status actions are cheap
+	private Executor executor(Action action) {
+		if (executors.isEmpty() || !(action instanceof MethodAction)) {
+			return null;
+		}
+
+		Execution.Mode execution = ((MethodAction) action).execution();
+		return executors.get(execution == null ? settings.getExecution() : execution);
+	}
+
+	// reading goes on while the executor runs the action, the requests after it are handled in the meantime
+	private void execute(final ChannelHandlerContext context, Executor executor, final Action action, final Exchange exchange) {
+		final Deadline deadline = deadline(exchange);
+
+		try {
+			executor.execute(() -> {
+				if (deadline != null && !deadline.start()) {
+					return; // answered while waiting in the queue
+				}
+
+				Request.REQUEST_HOLDER.set(exchange.request);
+				Validation.init();
+				ListenableFuture<?> deferred;
+
+				try {
+					deferred = dispatch(context, action, exchange, deadline);
+				} finally {
+					Request.REQUEST_HOLDER.remove();
+				}
+
+				if (deferred != null) {
+					defer(deferred, exchange);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			if (deadline != null && !deadline.finish()) {
+				return;
+			}
+
+			logger.debug("{} is rejected, executor is busy", exchange.request.path);
+			exchange.response.status = HttpResponseStatus.SERVICE_UNAVAILABLE;
+			complete(exchange, httpResponseHandler, exchange.response);
+		}
+	}
+
+	// answers 504 in place of an action still running on the executor at the request's deadline, its response is dropped.
+	// the action is only interrupted when Settings.interruptOnTimeout asks for it, an interrupt can close the channels and connections it uses.
+	private Deadline deadline(final Exchange exchange) {
+		final long remaining = exchange.request.remaining();
+
+		if (timer == null || remaining < 0) {
+			return null;
+		}
+
+		final Deadline deadline = new Deadline(settings.isInterruptOnTimeout());
+
+		deadline.timeout = timer.newTimeout(timeout -> {
+			if (!deadline.expire()) {
+				return;
+			}
+
+			Response response = exchange.response;
+			Response timedOut = new Response(); // the action may still be writing to its own
+			timedOut.requestPath = response.requestPath;
+			timedOut.contentType = response.contentType;
+			timedOut.head = response.head;
+			timedOut.cause = new TimeoutException(exchange.request.path, remaining);
+			logger.debug(timedOut.cause.getMessage());
+
+			complete(exchange, httpExceptionHandler, timedOut);
+		}, remaining, TimeUnit.MILLISECONDS);
+
+		return deadline;
+	}
 
-			context.getPipeline().addLast("response", httpResponseHandler);
+	// returns the future of an asynchronous result, its response is completed by defer when it is done
+	private ListenableFuture<?> dispatch(ChannelHandlerContext context, Action action, Exchange exchange, Deadline deadline) {
+		Request request = exchange.request;
+		Response response = exchange.response;
+		boolean failed = false;
+
+		try {
+			if (request.expired()) { // the caller has given up already, the action is not run
+				logger.debug("{} is shed, its deadline has passed", request.path);
+				response.status = HttpResponseStatus.SERVICE_UNAVAILABLE;
+			} else {
+				dispatcher.dispatch(context, action, request, response);
+			}
 		} catch (Throwable e) {
 			logger.debug(e.getMessage(), e);
-			context.getPipeline().addLast("exception", httpExceptionHandler);
+			response.cause = e;
+			failed = true;
+		}
+
+		if (deadline != null && !deadline.finish()) {
+			return null;
+		}
+
+		if (failed) {
+			complete(exchange, httpExceptionHandler, response);
+		} else if (response.deferred != null) {
+			return response.deferred;
+		} else {
+			complete(exchange, httpResponseHandler, response);
 		}
 
-		context.sendUpstream(messageEvent);
+		return null;
+	}
+
+	// completed on the thread that completes the result
+	private void defer(final ListenableFuture<?> deferred, final Exchange exchange) {
+		deferred.addListener(() -> {
+			Response response = exchange.response;
+
+			try {
+				Uninterruptibles.getUninterruptibly(deferred);
+				complete(exchange, httpResponseHandler, response);
+			} catch (Throwable e) {
+				response.cause = e instanceof ExecutionException ? e.getCause() : e;
+				logger.debug(response.cause.getMessage(), response.cause);
+				complete(exchange, httpExceptionHandler, response);
+			}
+		}, MoreExecutors.sameThreadExecutor());
+	}
+
+	// the body of the request is not needed once its response is ready
+	private void complete(Exchange exchange, HttpNullableResponseHandler writer, Response response) {
+		exchange.parser.close();
+		Executor executor = executors.get(Execution.Mode.VIRTUAL);
+
+		if (response.chunked instanceof BlockingChunkedInput && executor != null) { // read from a thread of its own while it is written
+			response.chunked = new ExecutorChunkedInput(response.chunked, executor, sequencer.context().getPipeline());
+		}
+
+		sequencer.complete(exchange.slot, writer, response);
+	}
+
+	// on the i/o worker after responses are written, reading resumes once the requests held back are handled
+	private void drain(ChannelHandlerContext context) {
+		if (draining) {
+			return;
+		}
+
+		draining = true;
+
+		try {
+			while (!pending.isEmpty() && !saturated()) {
+				receive(context, pending.poll());
+			}
+		} finally {
+			draining = false;
+		}
+
+		Channel channel = context.getChannel();
+
+		if (pending.isEmpty() && !closing && channel.isOpen() && !channel.isReadable()) {
+			channel.setReadable(true);
+		}
+	}
+
+	// the synchronous part of an action on the executor, either it or the timer completes the response
+	private static final class Deadline {
+		private final boolean interrupt;
+		private boolean done;
+		private Thread runner;
+		private volatile Timeout timeout;
+
+		private Deadline(boolean interrupt) {
+			this.interrupt = interrupt;
+		}
+
+		// false when the timer answered before the action started
+		synchronized boolean start() {
+			if (done) {
+				return false;
+			}
+
+			runner = interrupt ? Thread.currentThread() : null;
+			return true;
+		}
+
+		// false when the timer answered in place of the action
+		boolean finish() {
+			synchronized (this) {
+				runner = null;
+
+				if (done) {
+					if (interrupt) {
+						Thread.interrupted(); // the interrupt of the timer is not left to the next task of the worker
+					}
+					return false;
+				}
+
+				done = true;
+			}
+
+			if (timeout != null) {
+				timeout.cancel();
+			}
+
+			return true;
+		}
+
+		synchronized boolean expire() {
+			if (done) {
+				return false;
+			}
+
+			done = true;
+
+			if (runner != null) {
+				runner.interrupt();
+			}
+
+			return true;
+		}
+	}
+
+	private static final class Exchange {
+		private final Request request;
+		private final Response response;
+		private final Parser parser;
+		private final HttpResponseSequencer.Slot slot;
+
+		private Exchange(Request request, Response response, Parser parser, HttpResponseSequencer.Slot slot) {
+			this.request = request;
+			this.response = response;
+			this.parser = parser;
+			this.slot = slot;
+		}
 	}
 
 	@Override
@@ -130,15 +438,21 @@ public class HttpRequestHandler extends SimpleChannelUpstreamHandler implements
 	}
 
 	@Override
-	public void channelOpen(ChannelHandlerContext context, ChannelStateEvent channelStateEvent) throws Exception {
+	public void channelOpen(final ChannelHandlerContext context, ChannelStateEvent channelStateEvent) throws Exception {
 		HttpServer.CHANNEL_GROUP.add(context.getChannel());
+		sequencer = new HttpResponseSequencer(context, () -> context.getPipeline().execute(() -> drain(context)));
 		super.channelOpen(context, channelStateEvent);
 	}
 
 	@Override
 	public void channelClosed(ChannelHandlerContext context, ChannelStateEvent channelStateEvent) throws Exception {
-		parser.close();
-		parser = null;
+		pending.clear();
+		sequencer.clear();
+
+		if (reading != null) {
+			reading.parser.close();
+			reading = null;
+		}
 	}
 
 	@Override
@@ -149,5 +463,6 @@ public class HttpRequestHandler extends SimpleChannelUpstreamHandler implements
 		this.httpResponseHandler = BeanUtils.getBean(settings, applicationContext, HttpResponseHandler.class);
 		this.httpExceptionHandler = BeanUtils.getBean(settings, applicationContext, HttpExceptionHandler.class);
 		this.webSocketRequestHandler = BeanUtils.getBean(settings, applicationContext, WebSocketRequestHandler.class);
+		this.timer = BeanUtils.getBean(settings, applicationContext, Timer.class);
 	}
 }
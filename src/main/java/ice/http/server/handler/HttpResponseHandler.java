@@ -1,23 +1,32 @@
 package ice.http.server.handler;
 
 import ice.http.server.Cookie;
+import ice.http.server.FilePart;
 import ice.http.server.Header;
 import ice.http.server.Response;
-import org.jboss.netty.buffer.ChannelBuffers;
-import org.jboss.netty.channel.ChannelFutureListener;
-import org.jboss.netty.channel.ChannelHandlerContext;
+import org.apache.commons.io.IOUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.*;
 import org.jboss.netty.handler.codec.http.*;
+import org.jboss.netty.handler.ssl.SslHandler;
+import org.jboss.netty.handler.stream.ChunkedFile;
+import org.jboss.netty.handler.stream.ChunkedInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
 
 public class HttpResponseHandler extends HttpNullableResponseHandler {
+	private final Logger logger = LoggerFactory.getLogger(HttpResponseHandler.class);
+	private static final int FILE_CHUNK_SIZE = Integer.parseInt(System.getProperty("server.response.file.chunk", "8192"));
+
 	@Override
 	protected void handleHttpResponse(ChannelHandlerContext context, Response response) {
-		byte[] bytes = null;
+		RandomAccessFile file = openFile(response);
+		ChannelBuffer content = response.toChannelBuffer();
 		HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, response.status);
 
-		if (response.output != null) {
-			bytes = response.output;
-		}
-
 		for (Header header : response.headers.values()) {
 			httpResponse.headers().set(header.name, header.value());
 		}
@@ -25,27 +34,91 @@ public class HttpResponseHandler extends HttpNullableResponseHandler {
 		httpResponse.headers().remove(HttpHeaders.Names.CONTENT_TYPE);
 
 		if (response.status != HttpResponseStatus.MOVED_PERMANENTLY) {
-			httpResponse.headers().set(HttpHeaders.Names.CONTENT_TYPE, response.contentType + "; charset=" + response.encoding);
+			httpResponse.headers().set(HttpHeaders.Names.CONTENT_TYPE, response.contentType.indexOf(';') < 0 ? response.contentType + "; charset=" + response.encoding : response.contentType);
 		}
 
 		for (Cookie cookie : response.cookies.values()) {
 			httpResponse.headers().add(HttpHeaders.Names.SET_COOKIE, cookie.encode());
 		}
 
-		if (bytes == null) {
-			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, "0");
-			httpResponse.setContent(ChannelBuffers.EMPTY_BUFFER);
+		if (response.chunked != null) {
+			httpResponse.setChunked(!response.head);
+			httpResponse.headers().set(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+		} else if (file != null) {
+			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(response.file.length));
 		} else {
-			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(bytes.length));
-			httpResponse.setContent(ChannelBuffers.copiedBuffer(bytes));
+			httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(content.readableBytes()));
+
+			if (!response.head) {
+				httpResponse.setContent(content);
+			}
 		}
 
-		if (response.shouldKeepAlive) {
-			httpResponse.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
-			context.getChannel().write(httpResponse);
-		} else {
-			httpResponse.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
-			context.getChannel().write(httpResponse).addListener(ChannelFutureListener.CLOSE);
+		httpResponse.headers().set(HttpHeaders.Names.CONNECTION, response.shouldKeepAlive ? HttpHeaders.Values.KEEP_ALIVE : HttpHeaders.Values.CLOSE);
+		ChannelFuture future = context.getChannel().write(httpResponse);
+
+		if (response.head) {
+			discard(response.chunked, file);
+		} else if (response.chunked != null) {
+			future = context.getChannel().write(new HttpChunkedInput(response.chunked));
+		} else if (file != null) {
+			future = writeFile(context, file, response.file);
+		}
+
+		future.addListener(response.shouldKeepAlive ? ChannelFutureListener.CLOSE_ON_FAILURE : ChannelFutureListener.CLOSE);
+	}
+
+	private void discard(ChunkedInput chunked, RandomAccessFile file) {
+		try {
+			if (chunked != null) {
+				chunked.close();
+			}
+		} catch (Exception e) {
+			logger.debug(e.getMessage(), e);
+		}
+
+		IOUtils.closeQuietly(file);
+	}
+
+	private RandomAccessFile openFile(Response response) {
+		if (response.file == null) {
+			return null;
+		}
+
+		try {
+			return new RandomAccessFile(response.file.file, "r");
+		} catch (IOException e) {
+			logger.debug(e.getMessage(), e);
+			response.file = null;
+			response.status = HttpResponseStatus.NOT_FOUND;
+			response.headers.remove(HttpHeaders.Names.CONTENT_RANGE);
+			return null;
+		}
+	}
+
+	// sendfile when the bytes go to the socket untouched, otherwise the file is read through the pipeline in chunks
+	private ChannelFuture writeFile(ChannelHandlerContext context, RandomAccessFile file, FilePart filePart) {
+		Channel channel = context.getChannel();
+
+		try {
+			if (context.getPipeline().get(SslHandler.class) == null) {
+				final FileRegion region = new DefaultFileRegion(file.getChannel(), filePart.offset, filePart.length);
+				ChannelFuture future = channel.write(region);
+				future.addListener(new ChannelFutureListener() {
+					@Override
+					public void operationComplete(ChannelFuture future) {
+						region.releaseExternalResources();
+					}
+				});
+
+				return future;
+			}
+
+			return channel.write(new ChunkedFile(file, filePart.offset, filePart.length, FILE_CHUNK_SIZE));
+		} catch (IOException e) {
+			logger.debug(e.getMessage(), e);
+			IOUtils.closeQuietly(file);
+			return Channels.failedFuture(channel, e);
 		}
 	}
 }
@@ -0,0 +1,95 @@
+package ice.http.server.handler;
+
+import ice.http.server.Response;
+import org.jboss.netty.channel.ChannelHandlerContext;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+// responses of pipelined requests are completed in any order on any thread, they are written in the order their requests were read
+final class HttpResponseSequencer {
+	private final ChannelHandlerContext context;
+	private final Runnable written; // called after each write, outside the lock
+	private final Queue<Slot> slots = new ArrayDeque<>();
+	private boolean writing; // a thread is writing the responses ready at the head, the others only leave theirs behind
+
+	HttpResponseSequencer(ChannelHandlerContext context, Runnable written) {
+		this.context = context;
+		this.written = written;
+	}
+
+	// called on the i/o worker as each request is read
+	synchronized Slot reserve() {
+		Slot slot = new Slot();
+		slots.add(slot);
+		return slot;
+	}
+
+	ChannelHandlerContext context() {
+		return context;
+	}
+
+	synchronized int inFlight() {
+		return slots.size();
+	}
+
+	// the response is written at once when every request before it is answered, otherwise by the completion of the last of them.
+	// the writes happen outside the lock, one thread at a time so they keep their order.
+	void complete(Slot slot, HttpNullableResponseHandler writer, Response response) {
+		synchronized (this) {
+			if (slot.writer != null) {
+				return;
+			}
+
+			slot.writer = writer;
+			slot.response = response;
+
+			if (writing) {
+				return;
+			}
+
+			writing = true;
+		}
+
+		boolean wrote = false;
+		boolean released = false;
+
+		try {
+			for (Slot head = next(); head != null; head = next()) {
+				head.writer.write(context, head.response);
+				wrote = true;
+			}
+
+			released = true; // by next()
+		} finally {
+			if (!released) {
+				synchronized (this) {
+					writing = false;
+				}
+			}
+		}
+
+		if (wrote) {
+			written.run();
+		}
+	}
+
+	// the head when it is answered, otherwise null and the writing is over
+	private synchronized Slot next() {
+		if (slots.isEmpty() || slots.peek().writer == null) {
+			writing = false;
+			return null;
+		}
+
+		return slots.poll();
+	}
+
+	synchronized void clear() {
+		slots.clear();
+	}
+
+	static final class Slot {
+		private HttpNullableResponseHandler writer;
+		private Response response;
+	}
+}
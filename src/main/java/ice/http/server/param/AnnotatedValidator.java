@@ -0,0 +1,24 @@
+package ice.http.server.param;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+
+public class AnnotatedValidator {
+	private final Annotation annotation;
+	private final Validator validator;
+	private final Map<String, Object> attributes;
+
+	public AnnotatedValidator(Annotation annotation, Validator validator, Map<String, Object> attributes) {
+		this.annotation = annotation;
+		this.validator = validator;
+		this.attributes = attributes;
+	}
+
+	public Annotation annotation() {
+		return annotation;
+	}
+
+	public boolean isSatisfied(Object value) {
+		return validator.isSatisfied(value, attributes);
+	}
+}
@@ -32,6 +32,11 @@ public class ConverterManager implements SettingsAware, InitializingBean, Applic
 	}
 
 	public Object convert(Request request, Parameter parameter, String value) {
+		Converter converter = getConverter(parameter);
+		return converter == null ? null : converter.convert(request, parameter, value);
+	}
+
+	public Converter getConverter(Parameter parameter) {
 		Annotation[] annotations = parameter.annotations;
 
 		if (annotations == null || annotations.length == 0) {
@@ -42,7 +47,7 @@ public class ConverterManager implements SettingsAware, InitializingBean, Applic
 			Converter converter = converters.get(annotation.annotationType());
 
 			if (converter != null) {
-				return converter.convert(request, parameter, value);
+				return converter;
 			}
 		}
 
@@ -17,6 +17,10 @@ public class Validation {
 		current.set(new Validation());
 	}
 
+	public static void set(Validation validation) {
+		current.set(validation);
+	}
+
 	public static Validation get() {
 		return current.get();
 	}
@@ -1,5 +1,6 @@
 package ice.http.server.param;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import ice.http.server.Parameter;
 import ice.http.server.Settings;
@@ -16,6 +17,8 @@ import org.springframework.context.ApplicationContextAware;
 import org.springframework.core.annotation.AnnotationUtils;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -25,6 +28,7 @@ public class ValidatorManager implements SettingsAware, InitializingBean, Applic
 	private ApplicationContext applicationContext;
 	private final Map<Class<? extends CheckWith>, Validator> validators = Maps.newHashMap();
 	private final Logger logger = LoggerFactory.getLogger(ValidatorManager.class);
+	private static final AnnotatedValidator[] EMPTY_VALIDATORS = new AnnotatedValidator[0];
 
 	@Override
 	public void setSettings(Settings settings) {
@@ -32,23 +36,38 @@ public class ValidatorManager implements SettingsAware, InitializingBean, Applic
 	}
 
 	public Annotation validate(Object value, Parameter parameter) {
+		return validate(value, getValidators(parameter));
+	}
+
+	public Annotation validate(Object value, AnnotatedValidator[] annotatedValidators) {
+		for (AnnotatedValidator annotatedValidator : annotatedValidators) {
+			if (!annotatedValidator.isSatisfied(value)) {
+				return annotatedValidator.annotation();
+			}
+		}
+
+		return null;
+	}
+
+	public AnnotatedValidator[] getValidators(Parameter parameter) {
 		Annotation[] annotations = parameter.annotations;
 
 		if (annotations == null || annotations.length == 0) {
-			return null;
+			return EMPTY_VALIDATORS;
 		}
 
+		List<AnnotatedValidator> annotatedValidators = Lists.newArrayListWithExpectedSize(annotations.length);
+
 		for (Annotation annotation : annotations) {
 			Validator validator = validators.get(annotation.annotationType());
 
 			if (validator != null) {
-				if (!validator.isSatisfied(value, AnnotationUtils.getAnnotationAttributes(annotation))) {
-					return annotation;
-				}
+				Map<String, Object> attributes = Collections.unmodifiableMap(AnnotationUtils.getAnnotationAttributes(annotation));
+				annotatedValidators.add(new AnnotatedValidator(annotation, validator, attributes));
 			}
 		}
 
-		return null;
+		return annotatedValidators.isEmpty() ? EMPTY_VALIDATORS : annotatedValidators.toArray(new AnnotatedValidator[annotatedValidators.size()]);
 	}
 
 	private void registerValidator(String basePackage) {
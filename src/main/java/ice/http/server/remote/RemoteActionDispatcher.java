@@ -21,7 +21,6 @@ import ice.http.server.view.View;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.util.ReflectionUtils;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
@@ -67,7 +66,7 @@ public class RemoteActionDispatcher extends MethodActionDispatcher implements Se
 			}
 		}
 
-		return ReflectionUtils.invokeMethod(methodAction.method(), methodAction.bean(), parameterValues.values().toArray());
+		return methodAction.invoker().invoke(parameterValues.values().toArray());
 	}
 
 	private <T> Object invokeWithoutParameters(MethodAction methodAction, JsonNode rootNode) {
@@ -93,7 +92,7 @@ public class RemoteActionDispatcher extends MethodActionDispatcher implements Se
 			i++;
 		}
 
-		return ReflectionUtils.invokeMethod(methodAction.method(), methodAction.bean(), parameterValues.values().toArray());
+		return methodAction.invoker().invoke(parameterValues.values().toArray());
 	}
 
 	@Override
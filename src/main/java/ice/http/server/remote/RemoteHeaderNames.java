@@ -2,4 +2,5 @@ package ice.http.server.remote;
 
 public interface RemoteHeaderNames {
 	String REMOTE_USE_PARAMETER_NAMES = "X-Remote-UseParameterNames";
+	String REMOTE_DEADLINE = "X-Remote-Deadline"; // milliseconds left to the caller, relative so the clocks of both hosts don't matter
 }
@@ -8,6 +8,7 @@ import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
+import org.jboss.netty.handler.stream.ChunkedWriteHandler;
 import org.jboss.netty.handler.timeout.IdleStateHandler;
 import org.jboss.netty.util.Timer;
 import org.springframework.beans.BeansException;
@@ -40,6 +41,7 @@ public class RemotePipelineFactory implements ChannelPipelineFactory, Applicatio
 
 		pipeline.addLast("decoder", new HttpRequestDecoder());
 		pipeline.addLast("encoder", new HttpResponseEncoder());
+		pipeline.addLast("chunked", new ChunkedWriteHandler());
 		pipeline.addLast("handler", remoteRequestHandler);
 
 		return pipeline;
@@ -9,6 +9,7 @@ import ice.http.server.action.Action;
 import ice.http.server.dispatcher.Dispatcher;
 import ice.http.server.exception.NotFoundException;
 import ice.http.server.handler.HttpExceptionHandler;
+import ice.http.server.handler.HttpNullableResponseHandler;
 import ice.http.server.handler.HttpResponseHandler;
 import ice.http.server.parser.Parser;
 import ice.http.server.utils.BeanUtils;
@@ -16,6 +17,7 @@ import org.apache.commons.lang.StringUtils;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.handler.codec.http.HttpChunk;
 import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -75,12 +77,13 @@ public class RemoteRequestHandler extends SimpleChannelUpstreamHandler implement
 
 		if (ready) {
 			ready = false;
-			handleMessage(context, messageEvent);
+			handleMessage(context);
 		}
 	}
 
-	private void handleMessage(ChannelHandlerContext context, MessageEvent messageEvent) {
-		context.getChannel().setAttachment(response);
+	// requests are answered on the i/o worker one after another, pipelined responses are written in order without a sequencer
+	private void handleMessage(ChannelHandlerContext context) {
+		HttpNullableResponseHandler writer = httpResponseHandler;
 
 		try {
 			String requestBody = this.content.toString();
@@ -97,21 +100,31 @@ public class RemoteRequestHandler extends SimpleChannelUpstreamHandler implement
 			response.contentType = "application/json";
 
 			try {
-				Action action = router.route(request);
-				dispatcher.dispatch(context, action, request, response);
+				if (request.expired()) { // the caller has given up already, the action is not run
+					logger.debug("{} is shed, its deadline has passed", request.path);
+					response.status = HttpResponseStatus.SERVICE_UNAVAILABLE;
+				} else {
+					Request.REQUEST_HOLDER.set(request); // the deadline of the caller goes on to the remote services called in turn
+
+					try {
+						Action action = router.route(request);
+						dispatcher.dispatch(context, action, request, response);
+					} finally {
+						Request.REQUEST_HOLDER.remove();
+					}
+				}
 			} catch (Exception e) {
 				response.cause = e;
+				response.content = null;
 				response.output = getExceptionMessage(context, request, response, e);
 				throw e;
 			}
-
-			context.getPipeline().addLast("response", httpResponseHandler);
 		} catch (Exception e) {
 			logger.debug(e.getMessage(), e);
-			context.getPipeline().addLast("exception", httpExceptionHandler);
+			writer = httpExceptionHandler;
 		}
 
-		context.sendUpstream(messageEvent);
+		writer.write(context, response);
 	}
 
 	private byte[] getExceptionMessage(ChannelHandlerContext context, Request request, Response response, Throwable cause) {
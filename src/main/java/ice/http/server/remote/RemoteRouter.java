@@ -51,8 +51,9 @@ public class RemoteRouter implements SettingsAware, Router, InitializingBean, Ap
 		this.settings = settings;
 	}
 
+	// remote calls are routed by the namespace and method in their body, whatever the http method
 	@Override
-	public Action route(Request request) {
+	public Action route(Request request, HttpMethod httpMethod) {
 		String requestBody = (String) request.args.get(Parser.BODY);
 		boolean useParameterNames = (Boolean) request.args.get(RemoteRequestHandler.USE_PARAMETER_NAMES);
 
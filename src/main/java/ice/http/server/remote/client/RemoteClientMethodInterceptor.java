@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import ice.http.server.Context;
+import ice.http.server.Request;
 import ice.http.server.remote.RemoteHeaderNames;
 import ice.http.server.remote.RemoteTypeReference;
 import ice.http.server.remote.annotations.Name;
@@ -102,6 +103,14 @@ public class RemoteClientMethodInterceptor implements MethodInterceptor {
 			request = Lists.newArrayList(arguments);
 		}
 
+		// the deadline of the request being served, if any, is forwarded so the remote service can shed work that is already too late
+		Request current = Request.REQUEST_HOLDER.get();
+		long remaining = current == null ? -1L : current.remaining();
+
+		if (current != null && current.expired()) {
+			throw new RemoteInvocationFailureException(serviceName + "#" + invocation.getMethod().getName() + " is not called, the deadline of " + current.path + " has passed", null);
+		}
+
 		HttpPost httpPost = null;
 		Type returnType = invocation.getMethod().getGenericReturnType();
 
@@ -114,6 +123,10 @@ public class RemoteClientMethodInterceptor implements MethodInterceptor {
 				httpPost.addHeader(RemoteHeaderNames.REMOTE_USE_PARAMETER_NAMES, "true");
 			}
 
+			if (remaining >= 0) {
+				httpPost.addHeader(RemoteHeaderNames.REMOTE_DEADLINE, String.valueOf(remaining));
+			}
+
 			HttpResponse httpResponse = httpClient.execute(httpPost);
 			int status = httpResponse.getStatusLine().getStatusCode();
 
@@ -131,6 +144,9 @@ public class RemoteClientMethodInterceptor implements MethodInterceptor {
 				return MAPPER.readValue(content, new RemoteTypeReference<>(returnType));
 			} else if (status == HttpStatus.SC_NOT_FOUND) {
 				throw new RemoteInvocationFailureException(serviceName + "#" + invocation.getMethod().getName() + " is not found", null);
+			} else if (status == HttpStatus.SC_SERVICE_UNAVAILABLE) { // shed by the server, the forwarded deadline had passed
+				EntityUtils.consumeQuietly(httpResponse.getEntity());
+				throw new RemoteInvocationFailureException(serviceName + "#" + invocation.getMethod().getName() + " is unavailable", null);
 			} else {
 				String content = EntityUtils.toString(httpResponse.getEntity());
 				Map<String, String> errors = MAPPER.readValue(content, new TypeReference<Map<String, String>>() {
@@ -7,8 +7,12 @@ import ice.http.server.Settings;
 import ice.http.server.SettingsAware;
 import ice.http.server.action.Action;
 import ice.http.server.action.NullAction;
+import ice.http.server.action.StatusAction;
 import ice.http.server.annotations.Method;
 import ice.http.server.utils.BeanUtils;
+import org.apache.commons.lang.StringUtils;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -17,13 +21,17 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class HttpRouter implements SettingsAware, Router, PathExposure, InitializingBean, ApplicationContextAware {
 	private Settings settings;
 	private ApplicationContext applicationContext;
 	private final List<Router> routers = Lists.newArrayList();
+	private final Map<Method.HttpMethod, Router[]> routingTable = Maps.newEnumMap(Method.HttpMethod.class); // routers in precedence order, only those with routes for the method
 	private final Logger logger = LoggerFactory.getLogger(HttpRouter.class);
 
 	@Override
@@ -31,10 +39,44 @@ public class HttpRouter implements SettingsAware, Router, PathExposure, Initiali
 		this.settings = settings;
 	}
 
+	// a miss falls back to the GET action for HEAD, then to the methods the path is routed for, answering OPTIONS or 405 with Allow
 	@Override
 	public Action route(Request request) {
-		for (Router router : routers) {
-			Action action = router.route(request);
+		Action action = route(request, request.method);
+
+		if (action != null || request.method == Method.HttpMethod.WS) {
+			return action;
+		}
+
+		if (request.method == Method.HttpMethod.HEAD) {
+			action = route(request, Method.HttpMethod.GET);
+
+			if (action != null) {
+				return action;
+			}
+		}
+
+		Set<Method.HttpMethod> allowedMethods = allowedMethods(request);
+
+		if (allowedMethods.isEmpty()) {
+			return null;
+		}
+
+		HttpResponseStatus status = request.method == Method.HttpMethod.OPTIONS ? HttpResponseStatus.OK : HttpResponseStatus.METHOD_NOT_ALLOWED;
+		return new StatusAction(request.path, status, Collections.singletonMap(HttpHeaders.Names.ALLOW, StringUtils.join(allowedMethods, ", ")));
+	}
+
+	// the routes of the method only, without the fallbacks of route(Request)
+	@Override
+	public Action route(Request request, Method.HttpMethod httpMethod) {
+		Router[] methodRouters = routingTable.get(httpMethod);
+
+		if (methodRouters == null) {
+			return null;
+		}
+
+		for (Router router : methodRouters) {
+			Action action = router.route(request, httpMethod);
 
 			if (action != null && !(action instanceof NullAction)) {
 				return action;
@@ -44,6 +86,62 @@ public class HttpRouter implements SettingsAware, Router, PathExposure, Initiali
 		return null;
 	}
 
+	// asks the routers of every other method whether their tables cover the path, only taken when the request method missed
+	private Set<Method.HttpMethod> allowedMethods(Request request) {
+		Set<Method.HttpMethod> allowedMethods = EnumSet.noneOf(Method.HttpMethod.class);
+		boolean any = "*".equals(request.path) && request.method == Method.HttpMethod.OPTIONS;
+
+		for (Map.Entry<Method.HttpMethod, Router[]> entry : routingTable.entrySet()) {
+			Method.HttpMethod httpMethod = entry.getKey();
+
+			if (httpMethod != Method.HttpMethod.WS && httpMethod != request.method && (any || allows(entry.getValue(), httpMethod, request.path))) {
+				allowedMethods.add(httpMethod);
+			}
+		}
+
+		if (allowedMethods.contains(Method.HttpMethod.GET)) {
+			allowedMethods.add(Method.HttpMethod.HEAD);
+		}
+
+		if (!allowedMethods.isEmpty()) {
+			allowedMethods.add(Method.HttpMethod.OPTIONS);
+		}
+
+		return allowedMethods;
+	}
+
+	private static boolean allows(Router[] methodRouters, Method.HttpMethod httpMethod, String path) {
+		for (Router router : methodRouters) {
+			if (router.allows(httpMethod, path)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public boolean allows(Method.HttpMethod httpMethod, String path) {
+		Router[] methodRouters = routingTable.get(httpMethod);
+		return methodRouters != null && allows(methodRouters, httpMethod, path);
+	}
+
+	@Override
+	public boolean routes(Method.HttpMethod httpMethod) {
+		return routingTable.containsKey(httpMethod);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends Router> T getRouter(Class<T> routerClass) {
+		for (Router router : routers) {
+			if (routerClass.isInstance(router)) {
+				return (T) router;
+			}
+		}
+
+		return null;
+	}
+
 	@Override
 	public Map<Method.HttpMethod, Map<String, Action>> getPaths() {
 		Map<Method.HttpMethod, Map<String, Action>> paths = Maps.newTreeMap();
@@ -72,6 +170,8 @@ public class HttpRouter implements SettingsAware, Router, PathExposure, Initiali
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
+		// /routes comes first so its status and static entries can shadow a controller route (a 404 for /favicon.ico, files
+		// over a catch-all). it costs a path that isn't under one of its keys a hash of the path, RoutePrefixes allocates nothing
 		List<Class<? extends Router>> routerClasses = Lists.newArrayList();
 		routerClasses.add(StaticRouter.class);
 		routerClasses.add(TreeRouter.class);
@@ -92,6 +192,20 @@ public class HttpRouter implements SettingsAware, Router, PathExposure, Initiali
 			}
 		}
 
+		for (Method.HttpMethod httpMethod : Method.HttpMethod.values()) {
+			List<Router> methodRouters = Lists.newArrayList();
+
+			for (Router router : routers) {
+				if (router.routes(httpMethod)) {
+					methodRouters.add(router);
+				}
+			}
+
+			if (!methodRouters.isEmpty()) {
+				routingTable.put(httpMethod, methodRouters.toArray(new Router[methodRouters.size()]));
+			}
+		}
+
 		if (logger.isDebugEnabled()) {
 			for (Router router : routers) {
 				logger.debug("[router] {}", router.getClass());
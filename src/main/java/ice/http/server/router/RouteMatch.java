@@ -0,0 +1,47 @@
+package ice.http.server.router;
+
+import ice.http.server.action.Action;
+import ice.http.server.action.MethodAction;
+
+public class RouteMatch {
+	private final Action action;
+	private final String path;
+	private final int[] offsets; // begin, end pairs of each {var} segment
+	private final int count;
+	private static final int[] EMPTY_OFFSETS = new int[0];
+
+	RouteMatch(Action action) {
+		this(action, null, EMPTY_OFFSETS, 0);
+	}
+
+	RouteMatch(Action action, String path, int[] offsets, int count) {
+		this.action = action;
+		this.path = path;
+		this.offsets = offsets;
+		this.count = count;
+	}
+
+	public Action action() {
+		return action;
+	}
+
+	public int variableCount() {
+		return count;
+	}
+
+	public String variable(int index) {
+		if (index < 0 || index >= count) {
+			return null;
+		}
+
+		return path.substring(offsets[index << 1], offsets[(index << 1) + 1]);
+	}
+
+	public String variable(String name) {
+		if (count == 0 || !(action instanceof MethodAction)) {
+			return null;
+		}
+
+		return variable(((MethodAction) action).pathVariableIndex(name));
+	}
+}
@@ -0,0 +1,89 @@
+package ice.http.server.router;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+// the /routes keys of one method. exact keys are looked up in a set, directory keys (ending with /) by the hash of each
+// prefix of the path up to a delimiter, computed as String.hashCode would while walking the path, so nothing is allocated
+final class RoutePrefixes {
+	private static final char PATH_DELIMITER = '/';
+	private final Set<String> paths;
+	private final int[] hashes; // sorted
+	private final String[] directories; // in the order of their hashes
+
+	RoutePrefixes(Collection<String> keys) {
+		ImmutableSet.Builder<String> paths = ImmutableSet.builder();
+		List<String> directories = new ArrayList<>();
+
+		for (String key : keys) {
+			if (key.endsWith(String.valueOf(PATH_DELIMITER))) {
+				directories.add(key);
+			} else {
+				paths.add(key);
+			}
+		}
+
+		directories.sort(Comparator.comparingInt(String::hashCode));
+		this.paths = paths.build();
+		this.directories = directories.toArray(new String[directories.size()]);
+		this.hashes = new int[this.directories.length];
+
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = this.directories[i].hashCode();
+		}
+	}
+
+	// true when the path is a key, lies under a directory key, or is a directory key without its trailing delimiter
+	boolean matches(String path) {
+		if (paths.contains(path)) {
+			return true;
+		}
+
+		int length = path.length();
+
+		if (hashes.length == 0 || length == 0) {
+			return false;
+		}
+
+		int hash = 0;
+
+		for (int i = 0; i < length; i++) {
+			char c = path.charAt(i);
+			hash = 31 * hash + c;
+
+			if (c == PATH_DELIMITER && directory(hash, path, i + 1)) {
+				return true;
+			}
+		}
+
+		return path.charAt(length - 1) != PATH_DELIMITER && directory(31 * hash + PATH_DELIMITER, path, length + 1);
+	}
+
+	private boolean directory(int hash, String path, int length) {
+		int index = Arrays.binarySearch(hashes, hash);
+
+		if (index < 0) {
+			return false;
+		}
+
+		while (index > 0 && hashes[index - 1] == hash) {
+			index--;
+		}
+
+		for (; index < hashes.length && hashes[index] == hash; index++) {
+			String key = directories[index];
+
+			if (key.length() == length && key.regionMatches(0, path, 0, Math.min(length, path.length()))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
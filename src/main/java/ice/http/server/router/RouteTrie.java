@@ -0,0 +1,331 @@
+package ice.http.server.router;
+
+import ice.http.server.action.Action;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+final class RouteTrie {
+	private final Node root;
+	private final int maxVariables;
+	private static final char PATH_DELIMITER = '/';
+	private static final Node[] EMPTY_CHILDREN = new Node[0];
+
+	private static final Comparator<Node> NODE_COMPARATOR = (node1, node2) -> {
+		int compared = node1.name.length() - node2.name.length();
+		return compared != 0 ? compared : node1.name.compareTo(node2.name);
+	};
+
+	private static final Comparator<Node> TYPED_COMPARATOR = (node1, node2) -> {
+		int compared = node1.constraint.priority - node2.constraint.priority;
+		return compared != 0 ? compared : node1.constraint.expression.compareTo(node2.constraint.expression);
+	};
+
+	private RouteTrie(Node root) {
+		this.root = root;
+		this.maxVariables = maxVariables(root);
+	}
+
+	static RouteTrie compile(TreeRouter.Tree tree) {
+		return new RouteTrie(compile0(tree, null, 0));
+	}
+
+	private static int maxVariables(Node node) {
+		int max = 0;
+
+		for (Node child : node.children) {
+			max = Math.max(max, maxVariables(child));
+		}
+
+		for (Node child : node.typed) {
+			max = Math.max(max, maxVariables(child));
+		}
+
+		if (node.wildcard != null) {
+			max = Math.max(max, maxVariables(node.wildcard));
+		}
+
+		return node.catchAll == null ? max : Math.max(max, node.catchAll.variables);
+	}
+
+	private static Node compile0(TreeRouter.Tree tree, Constraint constraint, int variables) {
+		Node wildcard = null;
+		Node catchAll = null;
+		Node[] children = EMPTY_CHILDREN;
+		Node[] typed = EMPTY_CHILDREN;
+
+		if (!tree.children.isEmpty()) {
+			int i = 0;
+			int j = 0;
+			children = new Node[tree.children.size()];
+			typed = new Node[tree.children.size()];
+
+			for (Map.Entry<String, TreeRouter.Tree> entry : tree.children.entrySet()) {
+				String key = entry.getKey();
+
+				if (TreeRouter.Tree.DEFAULT_PATH.equals(key)) {
+					wildcard = compile0(entry.getValue(), null, variables + 1);
+				} else if (TreeRouter.Tree.CATCH_ALL_PATH.equals(key)) {
+					catchAll = compile0(entry.getValue(), null, variables + 1);
+				} else if (key.startsWith("{") && key.endsWith("}")) {
+					typed[j++] = compile0(entry.getValue(), Constraint.of(key.substring(1, key.length() - 1)), variables + 1);
+				} else {
+					children[i++] = compile0(entry.getValue(), null, variables);
+				}
+			}
+
+			children = Arrays.copyOf(children, i);
+			Arrays.sort(children, NODE_COMPARATOR);
+			typed = Arrays.copyOf(typed, j);
+			Arrays.sort(typed, TYPED_COMPARATOR);
+		}
+
+		return new Node(tree.name, tree.action, children, typed, wildcard, catchAll, constraint, variables);
+	}
+
+	// a path of static segments only is walked without allocating and returns the node's shared match.
+	// otherwise the trie is searched depth first in the order static > typed > {var} > **, backtracking when a branch dead-ends.
+	RouteMatch match(String path) {
+		int length = path.length();
+
+		if (length == 0) {
+			return null;
+		}
+
+		RouteMatch match = matchStatic(path);
+
+		if (match != null || maxVariables == 0) {
+			return match;
+		}
+
+		int[] offsets = new int[maxVariables << 1];
+		Node node = match(root, path, 1, offsets, 0); // skip leading delimiter
+
+		if (node == null) {
+			return null;
+		}
+
+		return node.variables == 0 ? node.match : new RouteMatch(node.action, path, offsets, node.variables);
+	}
+
+	private RouteMatch matchStatic(String path) {
+		int length = path.length();
+		Node node = root;
+		int start = 1;
+
+		while (start < length) {
+			int end = path.indexOf(PATH_DELIMITER, start);
+			node = node.child(path, start, end < 0 ? length : end);
+
+			if (node == null || end < 0) {
+				break;
+			}
+
+			start = end + 1;
+		}
+
+		return node == null ? null : node.match;
+	}
+
+	private static Node match(Node node, String path, int start, int[] offsets, int count) {
+		int length = path.length();
+
+		if (start >= length) { // a trailing delimiter is ignored
+			if (node.action != null) {
+				return node;
+			}
+
+			return node.catchAll == null || node.catchAll.action == null ? null : capture(node.catchAll, offsets, count, length, length);
+		}
+
+		int end = path.indexOf(PATH_DELIMITER, start);
+		int segmentEnd = end < 0 ? length : end;
+		int next = end < 0 ? length : end + 1;
+		Node found;
+		Node child = node.child(path, start, segmentEnd);
+
+		if (child != null && (found = match(child, path, next, offsets, count)) != null) {
+			return found;
+		}
+
+		if (node.typed.length == 0 && node.wildcard == null && node.catchAll == null) {
+			return null;
+		}
+
+		offsets[count << 1] = start;
+		offsets[(count << 1) + 1] = segmentEnd;
+
+		for (Node typed : node.typed) {
+			if (typed.constraint.matches(path, start, segmentEnd) && (found = match(typed, path, next, offsets, count + 1)) != null) {
+				return found;
+			}
+		}
+
+		if (node.wildcard != null && (found = match(node.wildcard, path, next, offsets, count + 1)) != null) {
+			return found;
+		}
+
+		if (node.catchAll == null || node.catchAll.action == null) {
+			return null;
+		}
+
+		return capture(node.catchAll, offsets, count, start, path.charAt(length - 1) == PATH_DELIMITER ? length - 1 : length);
+	}
+
+	private static Node capture(Node node, int[] offsets, int count, int start, int end) {
+		offsets[count << 1] = start;
+		offsets[(count << 1) + 1] = end;
+		return node;
+	}
+
+	// constraints written as a simple character class are checked by hand, anything else falls back to a regex.
+	abstract static class Constraint {
+		final String expression;
+		final int priority; // character classes are tried before regular expressions
+
+		Constraint(String expression, int priority) {
+			this.expression = expression;
+			this.priority = priority;
+		}
+
+		abstract boolean matches(String path, int start, int end);
+
+		static Constraint of(String expression) {
+			switch (expression) {
+				case "\\d+":
+				case "[0-9]+":
+				case "\\p{Digit}+":
+					return new CharClass(expression, CharClass.DIGIT);
+				case "[a-zA-Z]+":
+				case "[A-Za-z]+":
+				case "\\p{Alpha}+":
+					return new CharClass(expression, CharClass.ALPHA);
+				case "[a-zA-Z0-9]+":
+				case "[A-Za-z0-9]+":
+				case "[0-9a-zA-Z]+":
+				case "\\p{Alnum}+":
+					return new CharClass(expression, CharClass.DIGIT | CharClass.ALPHA);
+				case "\\w+":
+					return new CharClass(expression, CharClass.DIGIT | CharClass.ALPHA | CharClass.UNDERSCORE);
+				default:
+					return new Regex(expression);
+			}
+		}
+	}
+
+	static final class CharClass extends Constraint {
+		static final int DIGIT = 1;
+		static final int ALPHA = 2;
+		static final int UNDERSCORE = 4;
+		private final int classes;
+
+		CharClass(String expression, int classes) {
+			super(expression, 0);
+			this.classes = classes;
+		}
+
+		@Override
+		boolean matches(String path, int start, int end) {
+			if (start >= end) {
+				return false;
+			}
+
+			for (int i = start; i < end; i++) {
+				char c = path.charAt(i);
+
+				if (c >= '0' && c <= '9') {
+					if ((classes & DIGIT) == 0) {
+						return false;
+					}
+				} else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+					if ((classes & ALPHA) == 0) {
+						return false;
+					}
+				} else if (c != '_' || (classes & UNDERSCORE) == 0) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+
+	static final class Regex extends Constraint {
+		private final Pattern pattern;
+
+		Regex(String expression) {
+			super(expression, 1);
+			this.pattern = Pattern.compile(expression);
+		}
+
+		@Override
+		boolean matches(String path, int start, int end) {
+			return pattern.matcher(path).region(start, end).matches();
+		}
+	}
+
+	static final class Node {
+		final String name;
+		final Action action;
+		final Node[] children; // sorted by length, then by name
+		final Node[] typed; // sorted by priority, then by expression
+		final Node wildcard;
+		final Node catchAll;
+		final Constraint constraint;
+		final int variables; // {var} segments on the way from the root
+		final RouteMatch match;
+
+		Node(String name, Action action, Node[] children, Node[] typed, Node wildcard, Node catchAll, Constraint constraint, int variables) {
+			this.name = name;
+			this.action = action;
+			this.children = children;
+			this.typed = typed;
+			this.wildcard = wildcard;
+			this.catchAll = catchAll;
+			this.constraint = constraint;
+			this.variables = variables;
+			this.match = action == null ? null : new RouteMatch(action);
+		}
+
+		Node child(String path, int start, int end) {
+			int low = 0;
+			int high = children.length - 1;
+
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int compared = compare(children[mid].name, path, start, end);
+
+				if (compared < 0) {
+					low = mid + 1;
+				} else if (compared > 0) {
+					high = mid - 1;
+				} else {
+					return children[mid];
+				}
+			}
+
+			return null;
+		}
+
+		private static int compare(String name, String path, int start, int end) {
+			int length = end - start;
+
+			if (name.length() != length) {
+				return name.length() - length;
+			}
+
+			for (int i = 0; i < length; i++) {
+				char c1 = name.charAt(i);
+				char c2 = path.charAt(start + i);
+
+				if (c1 != c2) {
+					return c1 - c2;
+				}
+			}
+
+			return 0;
+		}
+	}
+}
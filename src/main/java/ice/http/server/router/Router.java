@@ -2,7 +2,22 @@ package ice.http.server.router;
 
 import ice.http.server.Request;
 import ice.http.server.action.Action;
+import ice.http.server.annotations.Method;
 
 public interface Router {
-	Action route(Request request);
+	default Action route(Request request) {
+		return route(request, request.method);
+	}
+
+	// looks the path up in the routes of the given method, which may differ from request.method (HEAD is answered by GET routes)
+	Action route(Request request, Method.HttpMethod httpMethod);
+
+	default boolean routes(Method.HttpMethod httpMethod) {
+		return true;
+	}
+
+	// whether a route of the method covers the path, read from the route tables without dispatching or loading anything
+	default boolean allows(Method.HttpMethod httpMethod, String path) {
+		return false;
+	}
 }
@@ -1,14 +1,21 @@
 package ice.http.server.router;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.cache.CacheStats;
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.EntryWeigher;
 import ice.http.server.Context;
+import ice.http.server.FilePart;
 import ice.http.server.Request;
+import ice.http.server.Settings;
+import ice.http.server.SettingsAware;
 import ice.http.server.action.Action;
-import ice.http.server.action.NullAction;
 import ice.http.server.action.StaticAction;
 import ice.http.server.action.StatusAction;
 import ice.http.server.annotations.Method;
+import ice.http.server.utils.NamedThreadFactory;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
@@ -21,24 +28,89 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.util.CollectionUtils;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
-public class StaticRouter implements Router, InitializingBean {
+public class StaticRouter implements SettingsAware, Router, InitializingBean {
+	private Settings settings;
 	private ConcurrentLinkedHashMap<String, StaticAction.StaticContent> staticFileCaches;
 	private ConcurrentLinkedHashMap<String, Action> staticRouteCaches;
+	private ConcurrentLinkedHashMap<String, Boolean> notFoundCaches; // misses under a known prefix, kept apart from staticRouteCaches
+	private final Map<Method.HttpMethod, RoutePrefixes> routePrefixes = Maps.newEnumMap(Method.HttpMethod.class); // status paths and static keys
+	private int maxCachedFileLength;
+	private Set<String> indexedFiles; // classpath paths under staticDir routes, null when not indexed
+	private Set<String> indexedDirectories;
+	private final AtomicLong fileCacheHits = new AtomicLong();
+	private final AtomicLong fileCacheMisses = new AtomicLong();
+	private final AtomicLong fileCacheEvictions = new AtomicLong();
 	private final Map<Method.HttpMethod, Map<String, String>> staticRoutes = Maps.newHashMap();
 	private final Map<Method.HttpMethod, Map<String, HttpResponseStatus>> statusRoutes = Maps.newHashMap();
+	private final Map<Method.HttpMethod, Map<String, Path>> fsRoutes = Maps.newHashMap();
 	private final PathMatchingResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
 	private final Logger logger = LoggerFactory.getLogger(StaticRouter.class);
 
+	private final long startedAt = System.currentTimeMillis();
+
 	private static final String DEFAULT_INDEX_FILE = "index.html";
 
+	@Override
+	public void setSettings(Settings settings) {
+		this.settings = settings;
+	}
+
+	private byte[] gzip(String staticPath, byte[] bytes) {
+		if (settings == null || !settings.isCompressible(Context.getContentType(staticPath), bytes.length)) {
+			return null;
+		}
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length);
+
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+			gzipOutputStream.write(bytes);
+		} catch (IOException e) {
+			return null;
+		}
+
+		return outputStream.size() < bytes.length ? outputStream.toByteArray() : null;
+	}
+
+	// the time of the jar entry or file, the start of the server when the classloader doesn't tell
+	private long lastModified(String staticPath) {
+		try {
+			long lastModified = new ClassPathResource(staticPath).lastModified();
+
+			if (lastModified > 0) {
+				return lastModified;
+			}
+		} catch (IOException ignored) {
+		}
+
+		return startedAt;
+	}
+
+	// resources on the file system (not inside a jar) can be sent without reading them into memory
+	private File getFile(String staticPath) {
+		try {
+			File file = new ClassPathResource(staticPath).getFile();
+			return file.isFile() ? file : null;
+		} catch (IOException ignored) {
+		}
+
+		return null;
+	}
+
 	private Action redirect(String path) {
-		return new StaticAction(path, new StaticAction.StaticContent(null, HttpResponseStatus.MOVED_PERMANENTLY.getCode()));
+		return new StaticAction(path, new StaticAction.StaticContent((byte[]) null, HttpResponseStatus.MOVED_PERMANENTLY.getCode()));
 	}
 
 	private Action routeStatic(String path, Map<String, String> staticRouteMap) {
@@ -82,18 +154,32 @@ public class StaticRouter implements Router, InitializingBean {
 			sb.append(staticEntry.getValue());
 		}
 
-		StaticAction.StaticContent staticContent = null;
 		String staticPath = sb.toString();
+		StaticAction.StaticContent staticContent = staticFileCaches.get(path);
 
-		if (staticFileCaches.containsKey(path)) {
-			staticContent = staticFileCaches.get(path);
-		} else {
-			if (!new ClassPathResource(staticPath).exists()) {
-				return null;
-			}
+		if (staticContent != null) {
+			fileCacheHits.incrementAndGet();
 
 			if (staticPath.endsWith(Context.PATH_DELIMITER)) {
 				staticPath += DEFAULT_INDEX_FILE;
+			}
+		} else {
+			fileCacheMisses.incrementAndGet();
+
+			if (indexedFiles != null) {
+				if (staticPath.endsWith(Context.PATH_DELIMITER)) {
+					staticPath += DEFAULT_INDEX_FILE;
+				} else if (indexedDirectories.contains(staticPath)) {
+					return redirect(staticPath);
+				}
+
+				if (!indexedFiles.contains(staticPath)) {
+					return null;
+				}
+			} else if (!new ClassPathResource(staticPath).exists()) {
+				return null;
+			} else if (staticPath.endsWith(Context.PATH_DELIMITER)) {
+				staticPath += DEFAULT_INDEX_FILE;
 			} else {
 				try {
 					Resource[] resources = resourcePatternResolver.getResources("classpath*:" + staticPath + "/*");
@@ -109,6 +195,12 @@ public class StaticRouter implements Router, InitializingBean {
 				}
 			}
 
+			File file = getFile(staticPath);
+
+			if (file != null && file.length() > maxCachedFileLength) {
+				return new StaticAction(staticPath, new StaticAction.StaticContent(file, file.lastModified()));
+			}
+
 			InputStream inputStream = null;
 			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
@@ -117,9 +209,11 @@ public class StaticRouter implements Router, InitializingBean {
 				IOUtils.copyLarge(inputStream, outputStream);
 				byte[] bytes = outputStream.toByteArray();
 
-				staticContent = new StaticAction.StaticContent(bytes, System.currentTimeMillis());
-
-				if (bytes.length <= 1024 * 1024) { // less than 1MB
+				if (bytes.length > maxCachedFileLength) { // validated by length and modified time, the compressor handles it when enabled
+					long timestamp = lastModified(staticPath);
+					staticContent = new StaticAction.StaticContent(bytes, timestamp, FilePart.etag(bytes.length, timestamp));
+				} else {
+					staticContent = new StaticAction.StaticContent(bytes, gzip(staticPath, bytes), System.currentTimeMillis());
 					staticFileCaches.putIfAbsent(path, staticContent);
 				}
 			} catch (NullPointerException | IOException ignored) {
@@ -133,49 +227,303 @@ public class StaticRouter implements Router, InitializingBean {
 		return new StaticAction(staticPath, staticContent);
 	}
 
+	// small files are read into staticFileCaches, larger ones are sent as file regions (not mapped, a mapping can't be released
+	// while a write may still read it, and a file truncated under it faults the process)
+	private StaticAction.StaticContent loadFs(String path, Path file) throws IOException {
+		if (Files.size(file) > maxCachedFileLength) {
+			return new StaticAction.StaticContent(file.toFile(), Files.getLastModifiedTime(file).toMillis());
+		}
+
+		byte[] bytes = Files.readAllBytes(file);
+		StaticAction.StaticContent staticContent = new StaticAction.StaticContent(bytes, gzip(file.toString(), bytes), Files.getLastModifiedTime(file).toMillis());
+		staticFileCaches.putIfAbsent(path, staticContent);
+		return staticContent;
+	}
+
+	private Action routeFs(String path, Map<String, Path> fsRouteMap) {
+		Path file = null;
+
+		for (Entry<String, Path> entry : fsRouteMap.entrySet()) {
+			if (entry.getKey().endsWith(Context.PATH_DELIMITER)) { // dir
+				if (path.startsWith(entry.getKey())) {
+					file = entry.getValue().resolve(path.substring(entry.getKey().length())).normalize();
+
+					if (!file.startsWith(entry.getValue())) {
+						return null;
+					}
+
+					break;
+				}
+
+				if ((path + Context.PATH_DELIMITER).equals(entry.getKey())) {
+					return redirect(path);
+				}
+			} else if (path.equals(entry.getKey())) {
+				file = entry.getValue();
+				break;
+			}
+		}
+
+		if (file == null) {
+			return null;
+		}
+
+		// a cached content was a regular file when it was loaded, StaticWatcher drops it once the file changes
+		StaticAction.StaticContent staticContent = staticFileCaches.get(path);
+
+		if (staticContent != null) {
+			fileCacheHits.incrementAndGet();
+			return new StaticAction((path.endsWith(Context.PATH_DELIMITER) ? file.resolve(DEFAULT_INDEX_FILE) : file).toString(), staticContent);
+		}
+
+		fileCacheMisses.incrementAndGet();
+
+		if (Files.isDirectory(file)) {
+			if (!path.endsWith(Context.PATH_DELIMITER)) {
+				return redirect(path);
+			}
+
+			file = file.resolve(DEFAULT_INDEX_FILE);
+		}
+
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+
+		try {
+			return new StaticAction(file.toString(), loadFs(path, file));
+		} catch (IOException e) {
+			logger.debug(e.getMessage(), e);
+			return null;
+		}
+	}
+
+	private static boolean isAffected(String key, String url, String parentUrl) {
+		return key.equals(url) || key.startsWith(url + Context.PATH_DELIMITER) || key.equals(parentUrl) || key.equals(parentUrl + Context.PATH_DELIMITER);
+	}
+
+	// drops every cached route and content under the changed path, and its directory for index files and redirects
+	private void invalidate(Path changed) {
+		for (Map<String, Path> map : fsRoutes.values()) {
+			for (Entry<String, Path> entry : map.entrySet()) {
+				if (!changed.startsWith(entry.getValue())) {
+					continue;
+				}
+
+				String relative = entry.getValue().relativize(changed).toString().replace(java.io.File.separatorChar, '/');
+				String url = entry.getKey().endsWith(Context.PATH_DELIMITER) ? entry.getKey() + relative : entry.getKey();
+				url = url.endsWith(Context.PATH_DELIMITER) ? url.substring(0, url.length() - 1) : url;
+				String parentUrl = url.substring(0, Math.max(0, url.lastIndexOf(Context.PATH_DELIMITER)));
+
+				for (String key : staticFileCaches.keySet()) {
+					if (isAffected(key, url, parentUrl)) {
+						staticFileCaches.remove(key);
+					}
+				}
+
+				for (String key : staticRouteCaches.keySet()) {
+					if (isAffected(key.substring(key.indexOf(' ') + 1), url, parentUrl)) {
+						staticRouteCaches.remove(key);
+					}
+				}
+
+				for (String key : notFoundCaches.keySet()) {
+					if (isAffected(key.substring(key.indexOf(' ') + 1), url, parentUrl)) {
+						notFoundCaches.remove(key);
+					}
+				}
+			}
+		}
+
+		logger.debug("[static] {} is changed", changed);
+	}
+
+	// a path can only be routed here when it is a key of /routes or lies under a directory key, checked without allocating
+	private boolean hasRoutePrefix(Method.HttpMethod httpMethod, String path) {
+		RoutePrefixes prefixes = routePrefixes.get(httpMethod);
+		return prefixes != null && prefixes.matches(path);
+	}
+
+	@Override
+	public boolean routes(Method.HttpMethod httpMethod) {
+		return routePrefixes.containsKey(httpMethod);
+	}
+
+	// the same lookup as route, a path under a key is only allowed when its file resolves. found and missing paths are cached alike
+	@Override
+	public boolean allows(Method.HttpMethod httpMethod, String path) {
+		return route(httpMethod, path) != null;
+	}
+
+	public CacheStats fileCacheStats() {
+		return new CacheStats(fileCacheHits.get(), fileCacheMisses.get(), 0, 0, 0, fileCacheEvictions.get());
+	}
+
+	public long fileCacheWeightedSize() {
+		return staticFileCaches.weightedSize();
+	}
+
 	@Override
-	public Action route(Request request) {
-		String routeKey = request.method.name() + " " + request.path;
+	public Action route(Request request, Method.HttpMethod httpMethod) {
+		return route(httpMethod, request.path);
+	}
+
+	private Action route(Method.HttpMethod httpMethod, String path) {
+		if (!hasRoutePrefix(httpMethod, path)) {
+			return null;
+		}
+
+		String routeKey = httpMethod.name() + " " + path;
+		Action cached = staticRouteCaches.get(routeKey);
+
+		if (cached != null) {
+			return cached;
+		}
 
-		if (staticRouteCaches.containsKey(routeKey)) {
-			return staticRouteCaches.get(routeKey);
+		if (notFoundCaches.containsKey(routeKey)) {
+			return null;
 		}
 
-		Map<String, HttpResponseStatus> statusRouteMap = statusRoutes.get(request.method);
+		Map<String, HttpResponseStatus> statusRouteMap = statusRoutes.get(httpMethod);
 
 		if (statusRouteMap != null) {
-			HttpResponseStatus httpResponseStatus = statusRouteMap.get(request.path);
+			HttpResponseStatus httpResponseStatus = statusRouteMap.get(path);
 
 			if (httpResponseStatus != null) {
-				Action action = new StatusAction(request.path, httpResponseStatus);
+				Action action = new StatusAction(path, httpResponseStatus);
 				staticRouteCaches.putIfAbsent(routeKey, action);
 				return action;
 			}
 		}
 
-		Map<String, String> staticRouteMap = staticRoutes.get(request.method);
+		Map<String, String> staticRouteMap = staticRoutes.get(httpMethod);
 
 		if (staticRouteMap != null) {
-			Action action = routeStatic(request.path, staticRouteMap);
+			StaticAction action = (StaticAction) routeStatic(path, staticRouteMap);
 
 			if (action != null) {
-				staticRouteCaches.putIfAbsent(routeKey, action);
+				if (action.contents() == null) { // contents in memory are held by staticFileCaches only, within its byte budget
+					staticRouteCaches.putIfAbsent(routeKey, action);
+				}
+
+				return action;
+			}
+		}
+
+		Map<String, Path> fsRouteMap = fsRoutes.get(httpMethod);
+
+		if (fsRouteMap != null) {
+			StaticAction action = (StaticAction) routeFs(path, fsRouteMap);
+
+			if (action != null) {
+				if (action.contents() == null) {
+					staticRouteCaches.putIfAbsent(routeKey, action);
+				}
+
 				return action;
 			}
 		}
 
-		staticRouteCaches.putIfAbsent(routeKey, new NullAction());
+		notFoundCaches.putIfAbsent(routeKey, Boolean.TRUE);
 
 		return null;
 	}
 
+	private static String stripDelimiter(String path) {
+		return path.endsWith(Context.PATH_DELIMITER) ? path.substring(0, path.length() - 1) : path;
+	}
+
+	private void indexDirectory(String directory, Set<String> files, Set<String> directories) throws IOException {
+		String location = StringUtils.removeStart(stripDelimiter(directory), Context.PATH_DELIMITER);
+
+		for (Resource root : resourcePatternResolver.getResources("classpath*:" + location + Context.PATH_DELIMITER)) {
+			String rootUrl = root.getURL().toString();
+			directories.add(Context.PATH_DELIMITER + location);
+
+			for (Resource resource : resourcePatternResolver.getResources(rootUrl + "**")) {
+				String url = resource.getURL().toString();
+
+				if (!url.startsWith(rootUrl) || url.length() == rootUrl.length()) {
+					continue;
+				}
+
+				String staticPath = Context.PATH_DELIMITER + location + Context.PATH_DELIMITER + url.substring(rootUrl.length());
+
+				if (url.endsWith(Context.PATH_DELIMITER) || ("file".equals(resource.getURL().getProtocol()) && resource.getFile().isDirectory())) {
+					directories.add(stripDelimiter(staticPath));
+					continue;
+				}
+
+				files.add(staticPath);
+
+				for (int i = staticPath.lastIndexOf(Context.PATH_DELIMITER); i > location.length() + 1; i = staticPath.lastIndexOf(Context.PATH_DELIMITER, i - 1)) {
+					directories.add(staticPath.substring(0, i));
+				}
+			}
+		}
+	}
+
+	// enumerates everything under the staticDir routes once, so a request never asks the classloader whether a path exists
+	private void indexStaticRoutes() {
+		Set<String> files = Sets.newHashSet();
+		Set<String> directories = Sets.newHashSet();
+
+		try {
+			for (Map<String, String> map : staticRoutes.values()) {
+				for (Entry<String, String> entry : map.entrySet()) {
+					if (entry.getKey().endsWith(Context.PATH_DELIMITER)) {
+						indexDirectory(entry.getValue(), files, directories);
+					} else if (resourcePatternResolver.getResources("classpath*:" + entry.getValue() + "/*").length > 0) {
+						indexDirectory(entry.getValue(), files, directories);
+					} else if (new ClassPathResource(entry.getValue()).exists()) {
+						files.add(entry.getValue());
+					}
+				}
+			}
+		} catch (IOException e) {
+			logger.debug(e.getMessage(), e);
+			return;
+		}
+
+		this.indexedFiles = ImmutableSet.copyOf(files);
+		this.indexedDirectories = ImmutableSet.copyOf(directories);
+
+		logger.debug("[static] {} files in {} directories are indexed", indexedFiles.size(), indexedDirectories.size());
+	}
+
+	private void watchFsRoutes() {
+		try {
+			StaticWatcher staticWatcher = new StaticWatcher(this::invalidate);
+
+			for (Map<String, Path> map : fsRoutes.values()) {
+				for (Path root : map.values()) {
+					if (Files.isDirectory(root)) {
+						staticWatcher.register(root);
+					}
+				}
+			}
+
+			Thread thread = new NamedThreadFactory(StaticWatcher.class.getSimpleName()).newThread(staticWatcher);
+			thread.setDaemon(true);
+			thread.start();
+		} catch (IOException e) {
+			logger.debug(e.getMessage(), e);
+		}
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		int staticFileCacheSize = Integer.parseInt(System.getProperty("cache.static.file", "50"));
+		long staticFileCacheBytes = Long.parseLong(System.getProperty("cache.static.file.bytes", String.valueOf(32 * 1024 * 1024)));
 		int staticRouteCacheSize = Integer.parseInt(System.getProperty("cache.static.route", "1000"));
+		maxCachedFileLength = Integer.parseInt(System.getProperty("cache.static.file.max", String.valueOf(1024 * 1024)));
 
-		staticFileCaches = new ConcurrentLinkedHashMap.Builder<String, StaticAction.StaticContent>().maximumWeightedCapacity(staticFileCacheSize).build();
+		staticFileCaches = new ConcurrentLinkedHashMap.Builder<String, StaticAction.StaticContent>()
+				.maximumWeightedCapacity(staticFileCacheBytes)
+				.weigher((EntryWeigher<String, StaticAction.StaticContent>) (key, value) -> value.weight())
+				.listener((key, value) -> fileCacheEvictions.incrementAndGet())
+				.build();
 		staticRouteCaches = new ConcurrentLinkedHashMap.Builder<String, Action>().maximumWeightedCapacity(staticRouteCacheSize).build();
+		notFoundCaches = new ConcurrentLinkedHashMap.Builder<String, Boolean>().maximumWeightedCapacity(Integer.parseInt(System.getProperty("cache.static.notfound", "1000"))).build();
 
 		InputStream inputStream = this.getClass().getResourceAsStream("/routes");
 
@@ -233,6 +581,45 @@ public class StaticRouter implements Router, InitializingBean {
 
 				staticRoutes.put(httpMethod, map);
 			}
+
+			if (splits[2].startsWith("staticFs:")) {
+				Map<String, Path> map = fsRoutes.get(httpMethod);
+
+				if (map == null) {
+					map = Maps.newLinkedHashMap();
+				}
+
+				map.put(path, Paths.get(splits[2].substring("staticFs:".length())).toAbsolutePath().normalize());
+				fsRoutes.put(httpMethod, map);
+			}
+		}
+
+		for (Method.HttpMethod httpMethod : Method.HttpMethod.values()) {
+			Set<String> prefixes = Sets.newLinkedHashSet();
+
+			if (statusRoutes.containsKey(httpMethod)) {
+				prefixes.addAll(statusRoutes.get(httpMethod).keySet());
+			}
+
+			if (staticRoutes.containsKey(httpMethod)) {
+				prefixes.addAll(staticRoutes.get(httpMethod).keySet());
+			}
+
+			if (fsRoutes.containsKey(httpMethod)) {
+				prefixes.addAll(fsRoutes.get(httpMethod).keySet());
+			}
+
+			if (!prefixes.isEmpty()) {
+				routePrefixes.put(httpMethod, new RoutePrefixes(prefixes));
+			}
+		}
+
+		if (Boolean.valueOf(System.getProperty("server.static.index", "false"))) { // opt-in, resources added at runtime are not found once indexed
+			indexStaticRoutes();
+		}
+
+		if (!fsRoutes.isEmpty() && Boolean.valueOf(System.getProperty("server.static.watch", "true"))) {
+			watchFsRoutes();
 		}
 
 		if (logger.isDebugEnabled()) {
@@ -247,6 +634,12 @@ public class StaticRouter implements Router, InitializingBean {
 					logger.debug("[static] {} {} => {}", entry.getKey(), pathEntry.getKey(), pathEntry.getValue());
 				}
 			}
+
+			for (Entry<Method.HttpMethod, Map<String, Path>> entry : fsRoutes.entrySet()) {
+				for (Entry<String, Path> pathEntry : entry.getValue().entrySet()) {
+					logger.debug("[static] {} {} => {}", entry.getKey(), pathEntry.getKey(), pathEntry.getValue());
+				}
+			}
 		}
 	}
 }
@@ -0,0 +1,78 @@
+package ice.http.server.router;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.function.Consumer;
+
+class StaticWatcher implements Runnable {
+	private final WatchService watchService;
+	private final Consumer<Path> listener;
+	private final Map<WatchKey, Path> directories = Maps.newConcurrentMap();
+	private final Logger logger = LoggerFactory.getLogger(StaticWatcher.class);
+
+	StaticWatcher(Consumer<Path> listener) throws IOException {
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.listener = listener;
+	}
+
+	// a WatchService only reports direct children, so every directory below root is registered
+	void register(Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+				WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+				directories.put(key, directory);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Override
+	public void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			WatchKey key;
+
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path directory = directories.get(key);
+
+			if (directory == null) {
+				key.cancel();
+				continue;
+			}
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					listener.accept(directory);
+					continue;
+				}
+
+				Path changed = directory.resolve((Path) event.context());
+
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+					try {
+						register(changed);
+					} catch (IOException e) {
+						logger.debug(e.getMessage(), e);
+					}
+				}
+
+				listener.accept(changed);
+			}
+
+			if (!key.reset()) {
+				directories.remove(key);
+			}
+		}
+	}
+}
@@ -9,6 +9,7 @@ import ice.http.server.action.MethodAction;
 import ice.http.server.annotations.Method.HttpMethod;
 import ice.http.server.annotations.Param;
 import ice.http.server.annotations.Route;
+import ice.http.server.binder.BinderManager;
 import ice.http.server.utils.BeanUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
@@ -31,12 +32,15 @@ import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Matcher;
 
 public class TreeRouter implements SettingsAware, Router, PathExposure, InitializingBean, ApplicationContextAware {
 	private Settings settings;
 	private Map<String, Object> controllers;
+	private BinderManager binderManager;
 	private InterceptorManager interceptorManager;
 	private final Map<HttpMethod, Tree> routes = Maps.newHashMap();
+	private final Map<HttpMethod, RouteTrie> compiledRoutes = Maps.newEnumMap(HttpMethod.class);
 	private final Map<HttpMethod, Map<String, Action>> paths = Maps.newTreeMap();
 	private final ParameterNameDiscoverer parameterNameDiscoverer = new LocalVariableTableParameterNameDiscoverer();
 	private final Logger logger = LoggerFactory.getLogger(TreeRouter.class);
@@ -47,9 +51,27 @@ public class TreeRouter implements SettingsAware, Router, PathExposure, Initiali
 	}
 
 	@Override
-	public Action route(Request request) {
-		Tree tree = routes.get(request.method);
-		return Tree.find(tree, request.path.substring(1));
+	public Action route(Request request, HttpMethod httpMethod) {
+		RouteTrie routeTrie = compiledRoutes.get(httpMethod);
+		RouteMatch routeMatch = routeTrie == null ? null : routeTrie.match(request.path);
+
+		if (routeMatch == null) {
+			return null;
+		}
+
+		request.routeMatch = routeMatch;
+		return routeMatch.action();
+	}
+
+	@Override
+	public boolean routes(HttpMethod httpMethod) {
+		return compiledRoutes.containsKey(httpMethod);
+	}
+
+	@Override
+	public boolean allows(HttpMethod httpMethod, String path) {
+		RouteTrie routeTrie = compiledRoutes.get(httpMethod);
+		return routeTrie != null && routeTrie.match(path) != null;
 	}
 
 	@Override
@@ -166,7 +188,12 @@ public class TreeRouter implements SettingsAware, Router, PathExposure, Initiali
 						String path = prefix + (path0.startsWith(Context.PATH_DELIMITER) ? path0 : Context.PATH_DELIMITER + path0);
 						MethodAction methodAction = new MethodAction(entry.getValue(), method, httpMethod, path, parameters);
 						interceptorManager.addInterceptors(methodAction);
-						Tree.generate(tree, path.substring(1), methodAction);
+						binderManager.addBindings(methodAction);
+						Action previous = Tree.generate(tree, path.substring(1), methodAction);
+
+						if (previous != null) {
+							logger.warn("[tree] {} {} overrides {}", httpMethod.name(), path, ((MethodAction) previous).path());
+						}
 
 						Map<String, Action> pathMap = this.paths.get(httpMethod);
 
@@ -184,11 +211,16 @@ public class TreeRouter implements SettingsAware, Router, PathExposure, Initiali
 				}
 			}
 		}
+
+		for (Entry<HttpMethod, Tree> entry : routes.entrySet()) {
+			compiledRoutes.put(entry.getKey(), RouteTrie.compile(entry.getValue()));
+		}
 	}
 
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
 		this.controllers = applicationContext.getBeansWithAnnotation(Controller.class);
+		this.binderManager = BeanUtils.getBean(settings, applicationContext, BinderManager.class);
 		this.interceptorManager = BeanUtils.getBean(settings, applicationContext, InterceptorManager.class);
 	}
 
@@ -196,37 +228,45 @@ public class TreeRouter implements SettingsAware, Router, PathExposure, Initiali
 		String name;
 		Action action;
 		final Map<String, Tree> children = Maps.newLinkedHashMap();
-		private static final String DEFAULT_PATH = "*";
+		static final String DEFAULT_PATH = "*";
+		static final String CATCH_ALL_PATH = Context.PATH_CATCH_ALL;
 
 		Tree(String name, Action action) {
 			this.name = name;
 			this.action = action;
 		}
 
-		static void generate(Tree tree, String path, Action action) {
+		// returns the action previously bound to the same route, if any
+		static Action generate(Tree tree, String path, Action action) {
 			int index = path.indexOf(Context.PATH_DELIMITER);
 			String name = index < 0 ? path : path.substring(0, index);
 
 			if ("".equals(name)) {
+				Action previous = tree.action;
 				tree.action = action;
-				return;
+				return previous;
 			}
 
-			if (name.startsWith("{") && name.endsWith("}")) {
-				name = DEFAULT_PATH;
+			name = key(name);
+
+			if (CATCH_ALL_PATH.equals(name) && index >= 0 && index < path.length() - 1) {
+				throw new IllegalArgumentException("catch-all must be the last segment : " + path);
 			}
 
 			Tree childTree = tree.children.get(name);
 
 			if (index < 0) { // leaf
+				Action previous = null;
+
 				if (childTree == null) {
 					childTree = new Tree(name, action);
 				} else {
+					previous = childTree.action;
 					childTree.action = action;
 				}
 
 				tree.children.put(name, childTree);
-				return;
+				return previous;
 			} else {
 				if (childTree == null) {
 					childTree = new Tree(name, null);
@@ -235,34 +275,26 @@ public class TreeRouter implements SettingsAware, Router, PathExposure, Initiali
 				tree.children.put(name, childTree);
 			}
 
-			generate(tree.children.get(name), path.substring(index + 1), action);
+			return generate(tree.children.get(name), path.substring(index + 1), action);
 		}
 
-		static Action find(Tree tree, String path) {
-			if (tree == null) {
-				return null;
-			}
-
-			if ("".equals(path)) {
-				return tree.action;
+		// {var} => *, ** and {var:**} => **, {var:constraint} => {constraint}, so variables of the same kind share a node
+		static String key(String name) {
+			if (CATCH_ALL_PATH.equals(name)) {
+				return CATCH_ALL_PATH;
 			}
 
-			if (path == null) {
-				return null;
+			if (!name.startsWith("{") || !name.endsWith("}")) {
+				return name;
 			}
 
-			String[] splits = path.split(Context.PATH_DELIMITER, 2);
-			Tree subtree = tree.children.get(splits[0]);
-
-			if (subtree == null) {
-				subtree = tree.children.get(DEFAULT_PATH);
-			}
+			Matcher matcher = Context.PATH_VARIABLE_PATTERN.matcher(name);
 
-			if (splits.length < 2) {
-				return subtree == null ? null : subtree.action;
+			if (!matcher.matches() || matcher.group(2) == null) {
+				return DEFAULT_PATH;
 			}
 
-			return find(subtree, splits[1]);
+			return CATCH_ALL_PATH.equals(matcher.group(2)) ? CATCH_ALL_PATH : "{" + matcher.group(2) + "}";
 		}
 	}
 }
@@ -0,0 +1,82 @@
+package ice.http.server.utils;
+
+import ice.http.server.Request;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.time.FastDateFormat;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.TimeZone;
+
+public final class ConditionalUtils {
+	private static final FastDateFormat HTTP_DATE_FORMAT = FastDateFormat.getInstance("EEE, dd MMM yyyy HH:mm:ss zzz", TimeZone.getTimeZone("GMT"), Locale.US);
+
+	private ConditionalUtils() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static String format(long millis) {
+		return HTTP_DATE_FORMAT.format(millis);
+	}
+
+	public static long parse(String httpDate) {
+		try {
+			return ZonedDateTime.parse(httpDate, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return -1;
+		}
+	}
+
+	private static boolean matches(String header, String etag) {
+		if (etag == null) {
+			return false;
+		}
+
+		for (String tag : StringUtils.split(header, ',')) {
+			tag = tag.trim();
+
+			if ("*".equals(tag) || etag.equals(tag) || (tag.startsWith("W/") && etag.equals(tag.substring(2)))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean notModifiedSince(String header, String lastModified, long timestamp) {
+		if (header.equals(lastModified)) { // usually the client echoes Last-Modified as it is
+			return true;
+		}
+
+		long since = parse(header);
+		return since >= 0 && timestamp / 1000 <= since / 1000;
+	}
+
+	// If-None-Match wins over If-Modified-Since when both are present
+	public static boolean isNotModified(Request request, String etag, String lastModified, long timestamp) {
+		String ifNoneMatch = request.header(HttpHeaders.Names.IF_NONE_MATCH);
+
+		if (StringUtils.isNotBlank(ifNoneMatch)) {
+			return matches(ifNoneMatch, etag);
+		}
+
+		String ifModifiedSince = request.header(HttpHeaders.Names.IF_MODIFIED_SINCE);
+		return StringUtils.isNotBlank(ifModifiedSince) && notModifiedSince(ifModifiedSince, lastModified, timestamp);
+	}
+
+	// the Range header, or null when If-Range names a representation other than the current one
+	public static String range(Request request, String etag, String lastModified) {
+		String range = request.header(HttpHeaders.Names.RANGE);
+		String ifRange = request.header(HttpHeaders.Names.IF_RANGE);
+
+		if (range == null || StringUtils.isBlank(ifRange)) {
+			return range;
+		}
+
+		ifRange = ifRange.trim();
+		return ifRange.equals(etag) || ifRange.equals(lastModified) ? range : null;
+	}
+}
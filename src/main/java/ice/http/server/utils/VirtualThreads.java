@@ -0,0 +1,32 @@
+package ice.http.server.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+
+// virtual threads are looked up by reflection, the server is built for java 8
+public final class VirtualThreads {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+	private static final int FALLBACK_THREADS = Integer.parseInt(System.getProperty("server.virtual.fallback.threads", "256"));
+
+	private VirtualThreads() {
+	}
+
+	// a thread per task on jdk 21 or later, otherwise a platform pool of at most server.virtual.fallback.threads that rejects when they are all busy
+	public static ExecutorService newExecutor(String name) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+			Method factoryMethod = builderClass.getMethod("factory");
+			ThreadFactory threadFactory = (ThreadFactory) factoryMethod.invoke(nameMethod.invoke(builder, name + " virtual-", 1L));
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			logger.debug("virtual threads are not supported, falling back to a platform pool: {}", e.toString());
+		}
+
+		return new ThreadPoolExecutor(0, FALLBACK_THREADS, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new NamedThreadFactory(name));
+	}
+}
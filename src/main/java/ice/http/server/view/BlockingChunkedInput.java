@@ -0,0 +1,8 @@
+package ice.http.server.view;
+
+import org.jboss.netty.handler.stream.ChunkedInput;
+
+// a body whose chunks are produced by blocking calls (a stream, a cursor, a remote service).
+// the http server reads it on an executor and hands the chunks to the i/o worker, other inputs are read on the i/o worker.
+public interface BlockingChunkedInput extends ChunkedInput {
+}
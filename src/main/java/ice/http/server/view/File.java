@@ -1,41 +1,37 @@
 package ice.http.server.view;
 
 import ice.http.server.Context;
+import ice.http.server.FilePart;
 import ice.http.server.Request;
 import ice.http.server.Response;
-import org.apache.commons.io.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import ice.http.server.utils.ConditionalUtils;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 
 public class File implements View {
-	private final Logger logger = LoggerFactory.getLogger(File.class);
-
 	@Override
 	public void apply(Object result, Request request, Response response) {
 		if (result == null || !(result instanceof java.io.File)) {
 			return;
 		}
 
-		InputStream inputStream = null;
-		ByteArrayOutputStream outputStream = null;
+		java.io.File file = (java.io.File) result;
 
-		try {
-			java.io.File file = (java.io.File) result;
-			inputStream = new FileInputStream(file);
-			outputStream = new ByteArrayOutputStream();
-			IOUtils.copyLarge(inputStream, outputStream);
+		if (!file.isFile() || !file.canRead()) {
+			return;
+		}
 
-			response.contentType = Context.getContentType(file.getName());
-			response.output = outputStream.toByteArray();
-		} catch (Exception e) {
-			logger.debug(e.getMessage(), e);
-		} finally {
-			IOUtils.closeQuietly(inputStream);
-			IOUtils.closeQuietly(outputStream);
+		String etag = FilePart.etag(file);
+		String lastModified = ConditionalUtils.format(file.lastModified());
+		response.header(HttpHeaders.Names.ETAG, etag);
+		response.header(HttpHeaders.Names.LAST_MODIFIED, lastModified);
+
+		if (ConditionalUtils.isNotModified(request, etag, lastModified, file.lastModified())) {
+			response.status = HttpResponseStatus.NOT_MODIFIED;
+			return;
 		}
+
+		response.contentType = Context.getContentType(file.getName());
+		response.file(file, ConditionalUtils.range(request, etag, lastModified));
 	}
 }
@@ -3,12 +3,13 @@ package ice.http.server.view;
 import ice.http.server.Request;
 import ice.http.server.Response;
 import org.apache.commons.io.IOUtils;
+import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 public abstract class Image implements View {
 	protected abstract String extension();
@@ -20,14 +21,14 @@ public abstract class Image implements View {
 			return;
 		}
 
-		ByteArrayOutputStream outputStream = null;
+		OutputStream outputStream = null;
 
 		try {
-			outputStream = new ByteArrayOutputStream();
+			outputStream = new ChannelBufferOutputStream(response.content());
 			ImageIO.write((BufferedImage) result, extension(), outputStream);
 			response.contentType = "image/" + extension();
-			response.output = outputStream.toByteArray();
 		} catch (Exception e) {
+			response.content = null;
 			logger.debug(e.getMessage(), e);
 		} finally {
 			IOUtils.closeQuietly(outputStream);
@@ -1,15 +1,20 @@
 package ice.http.server.view;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ice.http.server.Request;
 import ice.http.server.Response;
+import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.OutputStream;
+
 public class Json implements View {
 	private final Logger logger = LoggerFactory.getLogger(Json.class);
 	private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private static final int CHUNKED_THRESHOLD = Integer.parseInt(System.getProperty("view.json.chunked", "0"));
 
 	@Override
 	public void apply(Object result, Request request, Response response) {
@@ -17,10 +22,30 @@ public class Json implements View {
 
 		if (result != null) {
 			try {
-				response.output = MAPPER.writeValueAsBytes(result);
+				if (CHUNKED_THRESHOLD > 0 && result instanceof Iterable) {
+					stream((Iterable<?>) result, response);
+				} else {
+					MAPPER.writeValue((OutputStream) new ChannelBufferOutputStream(response.content()), result);
+				}
 			} catch (Exception e) {
+				response.content = null;
+				response.chunked = null;
 				logger.debug(e.getMessage(), e);
 			}
 		}
 	}
+
+	private void stream(Iterable<?> result, Response response) throws Exception {
+		JsonChunkedInput input = new JsonChunkedInput(result.iterator(), CHUNKED_THRESHOLD);
+		JsonGenerator generator = MAPPER.getFactory().createGenerator(input.outputStream());
+		generator.writeStartArray();
+		input.open(generator);
+
+		if (input.fill()) {
+			response.output = null;
+			response.content = input.buffer();
+		} else {
+			response.chunked = input;
+		}
+	}
 }
@@ -0,0 +1,95 @@
+package ice.http.server.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+// a lazy Iterable may hit a cursor or a remote service for its next element, so the rest of the array is serialized on an executor
+class JsonChunkedInput implements BlockingChunkedInput {
+	private final Iterator<?> iterator;
+	private final int chunkSize;
+	private JsonGenerator generator;
+	private ChannelBuffer buffer;
+	private boolean endOfInput;
+
+	JsonChunkedInput(Iterator<?> iterator, int chunkSize) {
+		this.iterator = iterator;
+		this.chunkSize = chunkSize;
+		this.buffer = ChannelBuffers.dynamicBuffer(chunkSize);
+	}
+
+	OutputStream outputStream() {
+		return new OutputStream() {
+			@Override
+			public void write(int b) {
+				buffer.writeByte(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				buffer.writeBytes(b, off, len);
+			}
+		};
+	}
+
+	void open(JsonGenerator generator) {
+		this.generator = generator;
+	}
+
+	// serializes until the buffer reaches chunkSize or the elements run out, returns true if it ended the array.
+	boolean fill() throws IOException {
+		if (endOfInput) {
+			return true;
+		}
+
+		while (iterator.hasNext() && buffer.readableBytes() < chunkSize) {
+			generator.writeObject(iterator.next());
+			generator.flush();
+		}
+
+		if (!iterator.hasNext()) {
+			generator.writeEndArray();
+			generator.close();
+			endOfInput = true;
+		}
+
+		return endOfInput;
+	}
+
+	ChannelBuffer buffer() {
+		return buffer;
+	}
+
+	@Override
+	public boolean hasNextChunk() throws Exception {
+		return buffer.readable() || !endOfInput;
+	}
+
+	@Override
+	public Object nextChunk() throws Exception {
+		if (!buffer.readable()) {
+			fill();
+		}
+
+		ChannelBuffer chunk = buffer;
+		buffer = ChannelBuffers.dynamicBuffer(chunkSize);
+		return chunk.readable() ? chunk : null;
+	}
+
+	@Override
+	public boolean isEndOfInput() throws Exception {
+		return endOfInput && !buffer.readable();
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (!endOfInput) {
+			endOfInput = true;
+			generator.close();
+		}
+	}
+}
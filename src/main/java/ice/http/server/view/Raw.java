@@ -30,6 +30,14 @@ public class Raw implements View {
 				response.output = res.output;
 			}
 
+			if (res.content != null) {
+				response.content = res.content;
+			}
+
+			if (res.chunked != null) {
+				response.chunked = res.chunked;
+			}
+
 			if (!res.cookies.isEmpty()) {
 				response.cookies.putAll(res.cookies);
 			}
@@ -13,7 +13,7 @@ public class Redirect implements View {
 		String url = result.toString();
 
 		if (!StringUtils.startsWith(url, "http")) {
-			url = "http://" + request.host + ":" + request.port + url;
+			url = "http://" + request.host() + ":" + request.port() + url;
 		}
 
 		response.status = HttpResponseStatus.MOVED_PERMANENTLY;
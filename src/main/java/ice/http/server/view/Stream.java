@@ -0,0 +1,96 @@
+package ice.http.server.view;
+
+import ice.http.server.Request;
+import ice.http.server.Response;
+import org.apache.http.entity.ContentType;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferOutputStream;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.stream.ChunkedInput;
+import org.jboss.netty.handler.stream.ChunkedStream;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class Stream implements View {
+	private static final int CHUNK_SIZE = Integer.parseInt(System.getProperty("view.stream.chunk", "8192"));
+
+	public interface Writer {
+		// writes the next part of the body, returns false after the last part
+		boolean write(OutputStream outputStream) throws Exception;
+	}
+
+	@Override
+	public void apply(Object result, Request request, Response response) {
+		ChunkedInput input = null;
+
+		if (result instanceof ChunkedInput) {
+			input = (ChunkedInput) result;
+		} else if (result instanceof InputStream) {
+			input = new BlockingChunkedStream((InputStream) result);
+		} else if (result instanceof Writer) {
+			input = new WriterChunkedInput((Writer) result);
+		}
+
+		if (input == null) {
+			return;
+		}
+
+		response.contentType = ContentType.APPLICATION_OCTET_STREAM.getMimeType();
+		response.output = null;
+		response.content = null;
+		response.chunked = input;
+	}
+
+	// read on an executor by the http server, see BlockingChunkedInput
+	private static class BlockingChunkedStream extends ChunkedStream implements BlockingChunkedInput {
+		private BlockingChunkedStream(InputStream inputStream) {
+			super(inputStream, CHUNK_SIZE);
+		}
+	}
+
+	private static class WriterChunkedInput implements BlockingChunkedInput {
+		private final Writer writer;
+		private boolean endOfInput;
+
+		private WriterChunkedInput(Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public boolean hasNextChunk() throws Exception {
+			return !endOfInput;
+		}
+
+		@Override
+		public Object nextChunk() throws Exception {
+			if (endOfInput) {
+				return null;
+			}
+
+			ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(CHUNK_SIZE);
+			OutputStream outputStream = new ChannelBufferOutputStream(buffer);
+
+			do {
+				endOfInput = !writer.write(outputStream);
+			} while (!endOfInput && !buffer.readable());
+
+			return buffer.readable() ? buffer : null;
+		}
+
+		@Override
+		public boolean isEndOfInput() throws Exception {
+			return endOfInput;
+		}
+
+		@Override
+		public void close() throws Exception {
+			endOfInput = true;
+
+			if (writer instanceof Closeable) {
+				((Closeable) writer).close();
+			}
+		}
+	}
+}
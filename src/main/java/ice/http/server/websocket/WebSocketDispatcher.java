@@ -11,6 +11,7 @@ import ice.http.server.SettingsAware;
 import ice.http.server.action.Action;
 import ice.http.server.action.Interceptor;
 import ice.http.server.action.InterceptorManager;
+import ice.http.server.action.Invoker;
 import ice.http.server.action.MethodAction;
 import ice.http.server.annotations.*;
 import ice.http.server.annotations.Method.HttpMethod;
@@ -30,7 +31,6 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Controller;
-import org.springframework.util.ReflectionUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
@@ -202,6 +202,7 @@ public class WebSocketDispatcher implements SettingsAware, ApplicationContextAwa
 					continue;
 				}
 
+				final Invoker invoker = new Invoker(entry.getValue(), method);
 				final List<Object> args = Lists.newArrayList();
 
 				for (Class<?> clazz : method.getParameterTypes()) {
@@ -232,7 +233,7 @@ public class WebSocketDispatcher implements SettingsAware, ApplicationContextAwa
 								}
 
 								if (isBound(path)) {
-									Object message = args.isEmpty() ? ReflectionUtils.invokeMethod(method, entry.getValue()) : ReflectionUtils.invokeMethod(method, entry.getValue(), args.toArray(new Object[args.size()]));
+									Object message = invoker.invoke(args.toArray());
 									sendMessage(path, message);
 								}
 
@@ -0,0 +1,79 @@
+package ice.http.server.action;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+// Method.invoke against Invoker, which calls the method from a class generated for it,
+// and a method handle in a static final field as the bound of what a constant-folded call gives.
+// mvn test-compile, then java -cp target/test-classes:<test classpath> ice.http.server.action.InvokerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+	private static final Controller CONTROLLER = new Controller();
+	private static final Method METHOD = method();
+	private static final MethodHandle CONSTANT_HANDLE = bind();
+
+	private Invoker invoker;
+	private Object[] args;
+
+	public static class Controller {
+		public String hello(String name, int count) {
+			return count > 0 ? name : null;
+		}
+	}
+
+	private static Method method() {
+		try {
+			return Controller.class.getMethod("hello", String.class, int.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MethodHandle bind() {
+		try {
+			return MethodHandles.lookup().unreflect(METHOD).bindTo(CONTROLLER).asSpreader(Object[].class, 2).asType(MethodType.methodType(Object.class, Object[].class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Setup
+	public void setup() {
+		invoker = new Invoker(CONTROLLER, METHOD);
+		args = new Object[]{"ice", 1};
+	}
+
+	@Benchmark
+	public Object reflection() throws Exception {
+		return METHOD.invoke(CONTROLLER, args);
+	}
+
+	@Benchmark
+	public Object invoker() {
+		return invoker.invoke(args);
+	}
+
+	@Benchmark
+	public Object constantHandle() throws Throwable {
+		return (Object) CONSTANT_HANDLE.invokeExact(args);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder().include(InvokerBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+}